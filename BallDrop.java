@@ -2,32 +2,33 @@ import java.awt.*;
 import java.awt.image.BufferedImage;
 import java.util.Queue;
 import java.util.LinkedList;
+import java.util.Random;
 
 import javax.swing.*;
 
 
-public class BallDrop extends JPanel implements Runnable{
+public class BallDrop extends JPanel implements Runnable, OfflineScene{
 
     private static final int W = 600, H = 600;
     
     //Ball setting
     private final int ballRadius = 70;
     private final int innerBallRadius = Math.round(ballRadius/3.5f);
-    private double x = ballRadius+10;
-    private double y = ballRadius;
-    
-    //Bounce
-    private boolean onGround = false;
 
     //Physics Setting
-    private double vx = 150;
-    private double vy = 0;
     private final double gravity = 2000; //Gravity (px/s^2)
     private final int groundY = H-2;
     private boolean isStopped = false;
     private boolean wasStopped = false;
     private final double reboundForce = 0.7;
     private final double mu = 0.07; //Just Appoximate, use to calculate friction of ball when ball touch floor.
+
+    //The single ball's whole path is solved up front and evaluated at simTime, so any moment can be reached
+    //directly (seek). The ball pit is stepped in a BallSystem instead (ball 0 is the one that flashes).
+    private final BallTrajectory trajectory;
+    private final BallSystem balls;
+    private final boolean pit;
+    private final int pitRadius;
     
     //Flash setting
     private boolean flashing = false;
@@ -37,19 +38,52 @@ public class BallDrop extends JPanel implements Runnable{
     //finish flashing
     private boolean isComplete = false;
 
+    //Simulation time (s), advanced with every physics step. The flash is timed with it, not the wall clock.
+    private double simTime = 0;
+
     //Color
-    private final Color outlineColor = new Color(30, 30, 30);
+    private final Color outlineColor = Palette.rgb(30, 30, 30);
     private final Color red = Color.RED;
     private final Color white = Color.WHITE;
-    private final Color band    = new Color(20,20,20);
-    private Color[] flashColor;
-
+    private final Color band    = Palette.rgb(20,20,20);
+    private static final Color[] flashColor = Palette.ramp(255, 255, 255); //White alpha ramp for the flash
+
+    //Sparks thrown off when the flash starts, from the bottom of the ball up and out along the ground.
+    //Emitted with a fixed seed at the flash start time, so seek() can replay them exactly.
+    private static final ParticleSystem.Emitter SPARKS = new ParticleSystem.Emitter(
+            250, 900, -Math.PI / 2, 1.4, 6, 0.35, 1.2, 1.8, 1400, 3, Palette.rgb(255, 200, 90).getRGB());
+    private static final ParticleSystem.Emitter EMBERS = new ParticleSystem.Emitter(
+            80, 350, -Math.PI / 2, 1.5, 20, 0.6, 1.6, 2.5, 300, 4, Palette.rgb(255, 90, 30).getRGB());
+    private final ParticleSystem particles = new ParticleSystem(4096);
+    private final long sparkSeed;
+
+    //Pre-rendered layers, the ball and the ground never change their look so they are drawn once and blitted
+    //(again only when the render scale changes)
+    private BufferedImage ballSprite;
+    private BufferedImage groundStrip;
+    private BufferedImage pitSprite;
+
+    //Render scale: the pixel algorithms run in device pixels, so a bigger target gets a bigger
+    //radius and thicker plot instead of a stretched 600x600 image. Physics stays in logical px.
+    private double scale = 1;
+    private int plotSize = 3;
+    private int frameW = W, frameH = H;
+
+    //Ball pit: java BallDrop pit [count]
     public static void main(String[] args) {
-        createGUI();
+        if(args.length > 0 && args[0].equals("pit")){
+            int count = (args.length > 1)? Integer.parseInt(args[1]) : PIT_BALLS;
+            createGUI(new BallDrop(SimulationClock.realTime(), count, FPS_Coding.DEFAULT_SEED));
+        } else {
+            createGUI(new BallDrop());
+        }
     }
 
     public static void createGUI(){
-        BallDrop panel = new BallDrop();
+        createGUI(new BallDrop());
+    }
+
+    private static void createGUI(BallDrop panel){
         JFrame f = new JFrame();
         f.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
         f.setContentPane(panel);
@@ -60,143 +94,267 @@ public class BallDrop extends JPanel implements Runnable{
         (new Thread(panel)).start();
     }
 
+    //Time source of run()
+    private final SimulationClock clock;
+
     public BallDrop(){
+        this(SimulationClock.realTime());
+    }
+
+    public BallDrop(SimulationClock clock){
+        this.clock = clock;
+        this.setPreferredSize(new Dimension(W,H));
+        this.setBackground(Color.WHITE);
+
+        pit = false;
+        pitRadius = 0;
+        sparkSeed = FPS_Coding.DEFAULT_SEED;
+        trajectory = new BallTrajectory(ballRadius+10, ballRadius, 150, 0, ballRadius, gravity, reboundForce, mu, W, groundY);
+        balls = null;
+
+        ballSprite = bakeBall();
+        groundStrip = bakeGround();
+    }
+
+    //Default number of balls in the pit
+    public static final int PIT_BALLS = 2000;
+
+    //Ball pit: `count` small balls thrown from a grid at the top with random velocities (seeded).
+    //The radius is picked so the settled balls fill a bit under half of the box.
+    public BallDrop(SimulationClock clock, int count, long seed){
+        this.clock = clock;
         this.setPreferredSize(new Dimension(W,H));
         this.setBackground(Color.WHITE);
+
+        pit = true;
+        sparkSeed = seed;
+        pitRadius = (int) Math.max(2, Math.min(20, Math.sqrt(0.45 * W * groundY / (Math.PI * count))));
+        trajectory = null;
+        balls = new BallSystem(count, pitRadius, gravity, reboundForce, mu, W, groundY);
+        Random rnd = new Random(seed);
+        int gap = 2 * pitRadius + 1; //start apart, or the first step would fling overlapping balls away
+        int cols = Math.max(1, (W - 2 * pitRadius) / gap);
+        for(int i = 0; i < count; i++){
+            double bx = pitRadius + 0.5 + (i % cols) * gap;
+            double by = pitRadius + 1 + (i / cols) * gap;
+            balls.add(bx, by, (rnd.nextDouble() - 0.5) * 600, -rnd.nextDouble() * 400);
+        }
+
+        ballSprite = bakeBall();
+        groundStrip = bakeGround();
+        pitSprite = bakePitBall();
     }
 
     @Override
     public void run() {
-        double lastTime = System.currentTimeMillis();
-
-        double currentTime, elapsedTime;
+        double elapsedTime;
 
         while (!isComplete) {
-            currentTime = System.currentTimeMillis();
-            elapsedTime = (currentTime - lastTime)/1000.0;
-            lastTime = currentTime;
+            elapsedTime = clock.tick();
 
             //Physics Apply method
-            updatePhysics(elapsedTime, currentTime);
+            step(elapsedTime);
 
             repaint();
         }
     }
 
-    @Override protected void paintComponent(Graphics g) {
-        g.setColor(white);
-        g.fillRect(0, 0, W, H);
+    @Override
+    public void step(double dt) {
+        simTime += dt;
+        updatePhysics(dt, simTime);
+        particles.step(dt);
 
-        BufferedImage buf = new BufferedImage(W, H, BufferedImage.TYPE_INT_ARGB);
-        Graphics gBuf = buf.createGraphics();
-        //Draw gound line
-        gBuf.setColor(Color.BLACK);
-        bresenhamLine(gBuf, 0, groundY, W-1, groundY);
+        //Start to flash (done here, not in paint, so the state only depends on the steps taken).
+        //The single ball flashes from the exact moment it stopped, like seek() puts it.
+        if(!wasStopped && isStopped && !flashing){
+            flashing = true;
+            flashStartTime = pit? simTime : trajectory.restTime();
+            emitSparks(simTime - flashStartTime);
+        }
+        wasStopped = isStopped; //wasStopped use for prevent above if run more than 1 times
 
-        //draw Ball
-        int ballCenterX = (int) Math.round(x);
-        int ballCenterY = (int) Math.round(y);
+        if(flashing && (simTime - flashStartTime) / flashDuration >= 1.0){
+            flashing = false;
+            isComplete = true;
+        }
+    }
 
-        gBuf.setColor(outlineColor);
-        midpointCircle(gBuf, ballCenterX, ballCenterY, ballRadius);
+    //The single ball's state is a function of time alone, so it jumps straight there. The pit has to be stepped.
+    @Override
+    public boolean seek(double t) {
+        if(pit) return false;
+        simTime = t;
+        isStopped = trajectory.isResting(t);
+        wasStopped = isStopped;
+        flashStartTime = trajectory.restTime();
+        flashing = isStopped && (t - flashStartTime) / flashDuration < 1.0;
+        isComplete = isStopped && !flashing;
+        particles.clear();
+        if(isStopped) emitSparks(t - flashStartTime);
+        return true;
+    }
 
-        //Band in Ball
-        gBuf.setColor(band);
-        bresenhamLine(gBuf, ballCenterX - ballRadius, ballCenterY , ballCenterX + ballRadius,ballCenterY);
-        bresenhamLine(gBuf, ballCenterX - ballRadius, ballCenterY - 1, ballCenterX + ballRadius,ballCenterY - 1);
-        bresenhamLine(gBuf, ballCenterX - ballRadius, ballCenterY + 1, ballCenterX + ballRadius,ballCenterY + 1);
+    //Burst of sparks where ball 0 rests, already `age` seconds old
+    private void emitSparks(double age){
+        double x = ballX(0), y = ballY(0) + (pit? pitRadius : ballRadius);
+        particles.emit(SPARKS, x, y, 600, sparkSeed);
+        particles.emit(EMBERS, x, y, 250, sparkSeed + 1);
+        particles.step(age);
+    }
 
-        //Inner circle
-        gBuf.setColor(outlineColor);
-        midpointCircle(gBuf, ballCenterX, ballCenterY, innerBallRadius);
+    @Override
+    public void renderFrame(Graphics2D g, int width, int height) {
+        double s = OfflineScene.fitScale(width, height, W, H);
+        if(s != scale) setRenderScale(s);
+
+        int ox = (width - frameW) / 2, oy = (height - frameH) / 2;
+        if(ox > 0 || oy > 0){
+            g.setColor(Color.BLACK);
+            g.fillRect(0, 0, width, height);
+        }
+        Graphics2D gg = (Graphics2D) g.create();
+        gg.translate(ox, oy);
+        gg.clipRect(0, 0, frameW, frameH);
+        paintComponent(gg);
+        gg.dispose();
+    }
 
-        //Floodfill
-        // System.out.println("CENTER : "+buf.getRGB(ballCenterX, ballCenterY));
-        floodFill(buf, ballCenterX, ballCenterY - (ballRadius/2), new Color(buf.getRGB(ballCenterX, ballCenterY - (ballRadius/2)),true), red); //Top half ball
-        floodFill(buf, ballCenterX, ballCenterY + (ballRadius/2), new Color(buf.getRGB(ballCenterX, ballCenterY + (ballRadius/2)), true), white); //Bottom half ball
-        floodFill(buf, ballCenterX, ballCenterY, new Color(buf.getRGB(ballCenterX, ballCenterY)), white); //Inner Circle
+    //Resize the device frame and re-bake the sprites at the new scale
+    private void setRenderScale(double s){
+        scale = s;
+        plotSize = Math.max(1, (int) Math.round(3 * s));
+        frameW = (int) Math.round(W * s);
+        frameH = (int) Math.round(H * s);
+        ballSprite = bakeBall();
+        groundStrip = bakeGround();
+        if(pit) pitSprite = bakePitBall();
+    }
 
-        g.drawImage(buf, 0, 0, null);
+    //Logical px -> device px of the current frame
+    private int dev(double v){
+        return (int) Math.round(v * scale);
+    }
 
-        //Start to flash.
-        if(!wasStopped && isStopped && !flashing){
-            flashing = true;
-            flashStartTime = System.currentTimeMillis() / 1000.0;
+    @Override
+    public int frameWidth() {
+        return W;
+    }
+
+    @Override
+    public int frameHeight() {
+        return H;
+    }
+
+    @Override protected void paintComponent(Graphics g) {
+        g.setColor(white);
+        g.fillRect(0, 0, frameW, frameH);
+
+        //Draw gound line
+        g.drawImage(groundStrip, 0, dev(groundY), null);
+
+        //draw Ball (sprite top-left is the radius away from the centre)
+        int r = dev(pit? pitRadius : ballRadius);
+        BufferedImage sprite = pit? pitSprite : ballSprite;
+        for(int i = pit? balls.count() - 1 : 0; i >= 0; i--){ //ball 0 last, on top
+            g.drawImage(sprite, dev(ballX(i)) - r, dev(ballY(i)) - r, null);
         }
-        wasStopped = isStopped; //wasStopped use for prevent above if run more than 1 times
+        int ballCenterX = dev(ballX(0));
+        int ballCenterY = dev(ballY(0));
 
         if(flashing){
-            // System.out.println("Flashing");
-            double current = System.currentTimeMillis() / 1000.0;
-            double t = (current - flashStartTime) / flashDuration;
-            if(t >= 1.0f){
-                t = 1.0;
-                flashing = false;
-                isComplete = true;
-            }
-
-            drawFlash(g, ballCenterX, ballCenterY, t, ballRadius);
+            double t = (simTime - flashStartTime) / flashDuration;
+            drawFlash(g, ballCenterX, ballCenterY, t, r);
         }
 
+        //All sparks in one additive overlay, one blit
+        BufferedImage sparks = particles.overlay(frameW, frameH, scale);
+        if(sparks != null) g.drawImage(sparks, 0, 0, null);
+
         if(isComplete && !flashing){
             drawWhiteScreen(g);
         }
     }
 
 
-    private void updatePhysics(double elapsedTime, double currentTime){
-        if(isStopped) return;
-        vy += gravity * elapsedTime;
-        x += vx * elapsedTime;
-        y += vy * elapsedTime;
-
-        //Check ball touch ground
-        if(y + ballRadius > groundY){
-            y = groundY - ballRadius;
-            if(Math.abs(vy) < 20) vy = 0; //Prevent ball spam bounce
-            else vy = -vy * reboundForce;
-        }
+    //Draw the ball once into its own image, centre at (radius, radius) in device px.
+    //plot() is plotSize wide so the outline reaches plotSize-1 px past the radius on the right/bottom.
+    private BufferedImage bakeBall(){
+        int ballRadius = dev(this.ballRadius);
+        int innerBallRadius = dev(this.innerBallRadius);
+        int size = 2 * ballRadius + plotSize;
+        BufferedImage buf = new BufferedImage(size, size, BufferedImage.TYPE_INT_ARGB);
+        Graphics gBuf = buf.createGraphics();
+        int ballCenterX = ballRadius;
+        int ballCenterY = ballRadius;
 
-        //Check ball touch ceil
-        if(y - ballRadius < 0){
-            y = 1 + ballRadius;
-            vy = -vy * reboundForce;
-        }
+        gBuf.setColor(outlineColor);
+        midpointCircle(gBuf, ballCenterX, ballCenterY, ballRadius);
 
-        if(x - ballRadius < 0){
-            x = ballRadius;
-            vx = -vx * reboundForce;
+        //Band in Ball (3 lines at 1x, thicker at bigger scales)
+        gBuf.setColor(band);
+        int half = Math.max(1, dev(1));
+        for(int dy = -half; dy <= half; dy++){
+            bresenhamLine(gBuf, ballCenterX - ballRadius, ballCenterY + dy, ballCenterX + ballRadius,ballCenterY + dy);
         }
 
-        if(x + ballRadius > W){
-            x = W - ballRadius;
-            vx = -vx * reboundForce;
-        }
+        //Inner circle
+        gBuf.setColor(outlineColor);
+        midpointCircle(gBuf, ballCenterX, ballCenterY, innerBallRadius);
+        gBuf.dispose();
 
-        onGround = (y + ballRadius >= groundY- 0.5)? true : false;
+        //Floodfill
+        floodFill(buf, ballCenterX, ballCenterY - (ballRadius/2), new Color(buf.getRGB(ballCenterX, ballCenterY - (ballRadius/2)),true), red); //Top half ball
+        floodFill(buf, ballCenterX, ballCenterY + (ballRadius/2), new Color(buf.getRGB(ballCenterX, ballCenterY + (ballRadius/2)), true), white); //Bottom half ball
+        floodFill(buf, ballCenterX, ballCenterY, new Color(buf.getRGB(ballCenterX, ballCenterY)), white); //Inner Circle
+        return buf;
+    }
 
-        if(onGround){ //Friction
-            double ax = -mu * gravity * Math.signum(vx);
-            double newVx = vx + ax * elapsedTime;
-            if(vx != 0 && Math.signum(newVx) != Math.signum(vx)) vx = 0;
-            vx = newVx;
-        }
+    //Pit ball: too small for the band and inner circle, so an outlined red dot in device px
+    private BufferedImage bakePitBall(){
+        int r = dev(pitRadius);
+        int size = 2 * r + plotSize;
+        BufferedImage buf = new BufferedImage(size, size, BufferedImage.TYPE_INT_ARGB);
+        Graphics gBuf = buf.createGraphics();
+        gBuf.setColor(outlineColor);
+        fillMidpointCircle(gBuf, r, r, r);
+        gBuf.setColor(red);
+        fillMidpointCircle(gBuf, r, r, r - Math.max(1, plotSize / 3));
+        gBuf.dispose();
+        return buf;
+    }
 
-        isStopped = (onGround && Math.abs(vx) < 0.5 && Math.abs(vy) < 0.5);
+    //Ground line is plotSize px thick, baked into a frameW x plotSize strip drawn at groundY
+    private BufferedImage bakeGround(){
+        BufferedImage strip = new BufferedImage(frameW, plotSize, BufferedImage.TYPE_INT_ARGB);
+        Graphics gStrip = strip.createGraphics();
+        gStrip.setColor(Color.BLACK);
+        bresenhamLine(gStrip, 0, 0, frameW-1, 0);
+        gStrip.dispose();
+        return strip;
     }
-    
-    //Create white color for make flash on screen
-    private void flashPalette(){
-        if(flashColor != null) return;
-        flashColor = new Color[256];
-        for(int alpha = 0; alpha < 256; alpha++){
-            flashColor[alpha] = new Color(255,255,255,alpha); 
+
+    private void updatePhysics(double elapsedTime, double currentTime){
+        if(isStopped) return;
+        if(!pit){
+            isStopped = trajectory.isResting(currentTime);
+            return;
         }
+        balls.step(elapsedTime);
+        isStopped = balls.allStopped();
+    }
+
+    //Centre of ball i now (logical px)
+    private double ballX(int i){
+        return pit? balls.x[i] : trajectory.x(simTime);
     }
 
+    private double ballY(int i){
+        return pit? balls.y[i] : trajectory.y(simTime);
+    }
+    
     //Make/draw flash after ball is stop.
     private void drawFlash(Graphics g, double x, double y, double t, double radius){
-        flashPalette();
         int xc = (int) Math.round(x), yc = (int) Math.round(y);
         t = clamp01(t);
 
@@ -205,10 +363,10 @@ public class BallDrop extends JPanel implements Runnable{
 
 
         //Make core of ball flash
-        int diag = (int) Math.hypot(W, H); //Screen diagonal
+        int diag = (int) Math.hypot(frameW, frameH); //Screen diagonal
         int r = (int)Math.round(lerp(radius * 1.4, 1.05 * diag, smoothS)); //radius of flash in core,which span from core to 105% of screen.
         int alphaCore = Math.min(255, (int)(255 * smoothS)); //Brightness of flash according distance.
-        g.setColor(flashColor[alphaCore]); //Use color from flashColor that is make from flashPalette().
+        g.setColor(flashColor[alphaCore]); //Use color from the shared white ramp (Palette).
         fillMidpointCircle(g, xc, yc, r);
 
         //Make screen white by flash
@@ -217,16 +375,16 @@ public class BallDrop extends JPanel implements Runnable{
             int alpha = (int)(Math.min(255, 255 * tt));
             g.setColor(flashColor[alpha]);
             int step = (alpha < 200)? 2 : 1; //help to prevent overload.
-            for(int yy = 0; yy < H; yy += step){
-                bresenhamLine(g, 0, yy, W-1, yy);
+            for(int yy = 0; yy < frameH; yy += step){
+                bresenhamLine(g, 0, yy, frameW-1, yy);
             }
         }
     }
 
     private void drawWhiteScreen(Graphics g){
         if(!isComplete) return;
-        for(int yy = 0; yy < H; yy+=2){
-            bresenhamLine(g, 0, yy, W-1, yy);
+        for(int yy = 0; yy < frameH; yy+=2){
+            bresenhamLine(g, 0, yy, frameW-1, yy);
         }
     }
 
@@ -244,7 +402,7 @@ public class BallDrop extends JPanel implements Runnable{
     
     //Plot
     private void plot(Graphics g, int x, int y) {
-        g.fillRect(x, y, 3, 3);
+        g.fillRect(x, y, plotSize, plotSize);
     }
 
     //Linear interpolation
@@ -302,7 +460,7 @@ public class BallDrop extends JPanel implements Runnable{
     }
 
     // Midpoint circle (outline)
-    private void midpointCircle(Graphics g, int xc, int yc, int r) {
+    void midpointCircle(Graphics g, int xc, int yc, int r) {
         int x = 0, y = r;
         int D = 1 - r;
         while (x <= y) {
@@ -340,7 +498,7 @@ public class BallDrop extends JPanel implements Runnable{
     //Use to fill color in Midpoint circle by draw holizontal line (Bresenham).
     public void span(Graphics g,int xc, int yc, int yy, int xx){
         int yyy = yc + yy; //y that should draw
-        if(yyy < 0 || yyy >= H) return;
+        if(yyy < 0 || yyy >= frameH) return;
         int x1 = (int) Math.round(xc - xx);
         int x2 = (int) Math.round(xc + xx);
         bresenhamLine(g, x1, yyy, x2, yyy);
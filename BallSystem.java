@@ -0,0 +1,768 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+/**
+ * Balls under gravity in a box, stored as parallel arrays (structure of arrays).
+ *
+ * Ball i is at (x[i], y[i]) with velocity (vx[i], vy[i]). step() runs
+ * BallDrop's single-ball rules (gravity, ground, ceiling and wall rebound,
+ * floor friction, rest detection) as one tight loop over primitives, so
+ * thousands of balls cost a few array passes and no objects.
+ *
+ * Motion against the box is swept rather than stepped: within a step each ball
+ * follows its exact path (a parabola in flight, constant friction deceleration
+ * while rolling), the earliest time of impact with the floor, ceiling or a wall
+ * is solved in closed form, and the bounce is applied there before the rest of
+ * the step is played out. The result does not depend on the step length, so
+ * the ball bounces, rolls and comes to rest the same way at 10 Hz as at 60 Hz.
+ * Ball-ball contacts are still resolved once per step.
+ *
+ * A ball that has come to rest falls asleep: it leaves the list of awake balls
+ * that every pass of the step runs over, and it moves from the per-step grid
+ * to a grid of sleepers that only changes when a ball falls asleep or wakes.
+ * Sleepers are fixed obstacles. A ball wakes when something hits it hard
+ * enough, when applyImpulse() kicks it, or when what it rested on moves away
+ * (only sleepers next to awake balls are checked). So the cost of a step
+ * follows the number of moving balls, and a settled pit costs next to nothing.
+ * All balls share one radius.
+ *
+ * With more than one ball, balls also collide. The broadphase is a uniform grid
+ * with cells one diameter wide, kept as linked lists through int arrays (a
+ * head per cell, a next per ball), so there is no object per entry and a ball
+ * only needs testing against its own cell and the 8 around it. The awake
+ * balls' lists are rebuilt every step and chain on into the cell's sleepers. The
+ * narrowphase pushes overlapping pairs apart and exchanges an equal-mass
+ * impulse along the contact normal, keeping `rebound` of the approach speed.
+ * A resting ball acts as a fixed obstacle until something hits it hard enough
+ * to wake it, and a ball resting on other balls counts as supported like a
+ * ball on the ground.
+ *
+ * In PARALLEL mode the per-ball passes run as range tasks on a ForkJoinPool,
+ * and the contacts are solved in six colour batches of cells (column mod 3,
+ * row mod 2), each holding only the cells next to an awake ball. A cell's contacts only touch balls in its own column +-1 and
+ * its own row and the next, so cells of one colour never share a ball and a
+ * batch can run in any order on any number of threads. SEQUENTIAL runs the
+ * same batches in the same order on the caller's thread, so both modes give
+ * bit-identical results.
+ */
+public final class BallSystem {
+
+    final double radius;
+    final double gravity; // px/s^2
+    final double rebound; // fraction of the normal speed kept by a bounce
+    final double mu; // floor friction coefficient
+    final double width, groundY; // walls at 0 and width, ceiling at 0
+
+    final double[] x, y, vx, vy;
+    final boolean[] onGround, stopped;
+    final boolean[] supported; // resting on another ball this step
+    private int count;
+    private int stoppedCount;
+
+    public enum StepMode { SEQUENTIAL, PARALLEL }
+
+    private StepMode stepMode = StepMode.PARALLEL;
+    private ForkJoinPool pool = ForkJoinPool.commonPool();
+    //Smallest slice of balls (or cells) worth a task of its own
+    private static final int MIN_BALLS_PER_TASK = 2048, MIN_CELLS_PER_TASK = 1024;
+
+    //Contacts slower than this (px/s) do not bounce, the same cut-off as the ground. Between balls it is
+    //at least two steps of gravity, or a pile would keep bouncing on what one step of falling adds.
+    static final double SETTLE_SPEED = 20;
+    private double settleSpeed = SETTLE_SPEED;
+    //Upper bound on the impacts resolved per ball per step (a ball settling on the floor bounces ever lower)
+    private static final int MAX_IMPACTS = 64;
+    //A ball in a pile that moved slower than this (px/s) over a step has come to rest
+    private static final double REST_SPEED = 5;
+    //Relaxation passes over the contacts per step (a ball in a pocket touches several)
+    private static final int SOLVER_PASSES = 3;
+
+    //Awake balls in index order: the only ones a step visits
+    private final int[] awake;
+    private int awakeCount;
+    private boolean awakeUnsorted; // balls were woken (appended) since the last step
+
+    //Broadphase grid: cells one diameter wide over the box. The balls of cell c are a list through next[]:
+    //its awake balls (valid when awakeStamp[c] == epoch), then its sleepers, which chain on from the
+    //last awake ball. The sleepers' lists are doubly linked and only change when a ball sleeps or wakes.
+    private final double cell;
+    private final int cols, rows;
+    private final int[] next;
+    private final int[] awakeHead, awakeStamp;
+    private final int[] sleepHead, sleepPrev, sleepCell;
+    private final int[] ballCell;
+    private int epoch;
+    //Cells whose contacts this step solves, keyed colour * cells + cell, and where each colour batch starts
+    private final int[] solveCells, solveStamp;
+    private final int[] batchStart = new int[7];
+    private boolean solveAll; // so many balls are awake that every cell is solved, no list needed
+    //Cells whose sleepers may have been woken this step, and the sleepers to wake
+    private final int[] wakeCells, wakeStamp;
+    private final int[] woken;
+    private final double[] preX, preY; // positions before the contacts moved them
+    private final double[] startX, startY; // positions at the start of the step
+    private final double[] lastDx, lastDy; // displacement over the previous step
+
+    public BallSystem(int capacity, double radius, double gravity, double rebound, double mu, double width,
+            double groundY) {
+        if (capacity < 0)
+            throw new IllegalArgumentException("capacity < 0: " + capacity);
+        this.radius = radius;
+        this.gravity = gravity;
+        this.rebound = rebound;
+        this.mu = mu;
+        this.width = width;
+        this.groundY = groundY;
+        this.x = new double[capacity];
+        this.y = new double[capacity];
+        this.vx = new double[capacity];
+        this.vy = new double[capacity];
+        this.onGround = new boolean[capacity];
+        this.stopped = new boolean[capacity];
+        this.supported = new boolean[capacity];
+
+        this.awake = new int[capacity];
+
+        this.cell = 2 * radius;
+        this.cols = Math.max(1, (int) Math.ceil(width / cell));
+        this.rows = Math.max(1, (int) Math.ceil(groundY / cell));
+        int cells = cols * rows;
+        this.next = new int[capacity];
+        this.awakeHead = new int[cells];
+        this.awakeStamp = new int[cells];
+        this.sleepHead = new int[cells];
+        Arrays.fill(sleepHead, -1);
+        this.sleepPrev = new int[capacity];
+        this.sleepCell = new int[capacity];
+        this.ballCell = new int[capacity];
+        this.solveCells = new int[cells];
+        this.solveStamp = new int[cells];
+        this.wakeCells = new int[cells];
+        this.wakeStamp = new int[cells];
+        this.woken = new int[capacity];
+        this.preX = new double[capacity];
+        this.preY = new double[capacity];
+        this.startX = new double[capacity];
+        this.startY = new double[capacity];
+        this.lastDx = new double[capacity];
+        this.lastDy = new double[capacity];
+    }
+
+    /** Add a ball and return its index. */
+    public int add(double x0, double y0, double vx0, double vy0) {
+        if (count == x.length)
+            throw new IllegalStateException("BallSystem is full (" + count + " balls)");
+        int i = count++;
+        x[i] = x0;
+        y[i] = y0;
+        vx[i] = vx0;
+        vy[i] = vy0;
+        awake[awakeCount++] = i;
+        return i;
+    }
+
+    /** Change ball i's velocity by (dvx, dvy), waking it if it was asleep. */
+    public void applyImpulse(int i, double dvx, double dvy) {
+        if (stopped[i]) {
+            wake(i);
+            stoppedCount--;
+        }
+        vx[i] += dvx;
+        vy[i] += dvy;
+    }
+
+    public StepMode getStepMode() {
+        return stepMode;
+    }
+
+    /** Run steps on the calling thread or on the common pool; the results are the same. */
+    public void setStepMode(StepMode mode) {
+        setStepMode(mode, ForkJoinPool.commonPool());
+    }
+
+    /** PARALLEL on a given pool (any parallelism gives the same results). */
+    public void setStepMode(StepMode mode, ForkJoinPool pool) {
+        this.stepMode = mode;
+        this.pool = pool;
+    }
+
+    public int count() {
+        return count;
+    }
+
+    public boolean isStopped(int i) {
+        return stopped[i];
+    }
+
+    /** True once every ball has come to rest. */
+    public boolean allStopped() {
+        return stoppedCount == count;
+    }
+
+    /** Number of balls the next step will move. */
+    public int awakeCount() {
+        return awakeCount;
+    }
+
+    /** Advance every moving ball by dt seconds. */
+    public void step(double dt) {
+        if (awakeCount == 0)
+            return;
+        if (awakeUnsorted) {
+            Arrays.sort(awake, 0, awakeCount);
+            awakeUnsorted = false;
+        }
+        boolean contacts = count > 1;
+        if (contacts) {
+            forRange(awakeCount, MIN_BALLS_PER_TASK, (from, to) -> {
+                for (int a = from; a < to; a++) {
+                    int i = awake[a];
+                    startX[i] = x[i];
+                    startY[i] = y[i];
+                }
+            });
+        }
+        forRange(awakeCount, MIN_BALLS_PER_TASK, (from, to) -> integrate(from, to, dt));
+
+        if (contacts) {
+            settleSpeed = Math.max(SETTLE_SPEED, 2 * gravity * dt);
+            buildGrid();
+            forRange(awakeCount, MIN_BALLS_PER_TASK, (from, to) -> {
+                for (int a = from; a < to; a++) {
+                    int i = awake[a];
+                    supported[i] = false;
+                    preX[i] = x[i];
+                    preY[i] = y[i];
+                }
+            });
+            for (int pass = 0; pass < SOLVER_PASSES; pass++)
+                collide();
+            wakeSleepers();
+            forRange(awakeCount, MIN_BALLS_PER_TASK, (from, to) -> {
+                clampToBox(from, to);
+                absorbCorrections(from, to, dt);
+            });
+        }
+
+        forRange(awakeCount, MIN_BALLS_PER_TASK, (from, to) -> settle(from, to, dt, contacts));
+        //Balls that came to rest leave the awake list for the sleepers' grid. Only sleepers next to moving
+        //balls are checked for lost support, so one must still be held up where it ended the step.
+        //Decide first, then sleep: sleeping relinks next[i], which the support test walks.
+        for (int a = 0; a < awakeCount; a++) {
+            int i = awake[a];
+            if (stopped[i] && contacts && !onGround[i] && !restsOnBall(i, cellOf(x[i], y[i])))
+                stopped[i] = false;
+        }
+        int kept = 0;
+        for (int a = 0; a < awakeCount; a++) {
+            int i = awake[a];
+            if (stopped[i])
+                sleep(i);
+            else
+                awake[kept++] = i;
+        }
+        awakeCount = kept;
+        stoppedCount = count - awakeCount;
+    }
+
+    //Ball i (just stopped) joins the sleepers of its cell. It no longer moves, so its step-start and
+    //pre-contact positions are final: a ball woken in the middle of a step sees them as it should.
+    private void sleep(int i) {
+        int c = cellOf(x[i], y[i]);
+        int h = sleepHead[c];
+        sleepCell[i] = c;
+        sleepPrev[i] = -1;
+        next[i] = h;
+        if (h >= 0)
+            sleepPrev[h] = i;
+        sleepHead[c] = i;
+        startX[i] = preX[i] = x[i];
+        startY[i] = preY[i] = y[i];
+        lastDx[i] = lastDy[i] = 0;
+        supported[i] = false;
+    }
+
+    //Ball i leaves the sleepers and is appended to the awake list (the next step puts that back in order).
+    //next[i] is left alone, so a list walk that is standing on i still finds the rest of the cell.
+    private void wake(int i) {
+        stopped[i] = false;
+        int p = sleepPrev[i], n = next[i];
+        if (p >= 0)
+            next[p] = n;
+        else
+            sleepHead[sleepCell[i]] = n;
+        if (n >= 0)
+            sleepPrev[n] = p;
+        awake[awakeCount++] = i;
+        awakeUnsorted = true;
+    }
+
+    //Gravity, motion, walls, floor and friction of balls [from, to), swept: each ball follows its exact
+    //path through the step (a parabola in flight, constant friction deceleration while rolling) from one
+    //impact to the next, and every impact is resolved at its time of impact. No dt, however long (a GC
+    //pause, a dragged window, a low tick rate), lets a ball pass through the floor, a wall or the ceiling.
+    private void integrate(int from, int to, double dt) {
+        final double r = radius, g = gravity, k = rebound, w = width, floor = groundY - radius;
+        final double friction = mu * g;
+        final double[] x = this.x, y = this.y, vx = this.vx, vy = this.vy;
+        for (int n = from; n < to; n++) {
+            int i = awake[n];
+            double px = x[i], py = y[i], ux = vx[i], uy = vy[i];
+
+            //Still on the floor (only nudged by contacts) without the speed to bounce: it rolls. A ball that
+            //left the floor stays in flight until it lands, however low the hop, so the path does not depend on dt.
+            boolean rolling = onGround[i] && py >= floor - 0.5 && Math.abs(uy) < SETTLE_SPEED;
+            if (rolling) {
+                py = floor;
+                uy = 0;
+            }
+            double left = dt;
+            for (int events = 0; left > 0 && events < MAX_IMPACTS; events++) {
+                if (rolling) {
+                    double a = -friction * Math.signum(ux);
+                    double span = (a != 0) ? Math.min(left, -ux / a) : left; // until the roll stops
+                    double tWall = Math.min(timeOfImpact(px, ux, a, r, -1), timeOfImpact(px, ux, a, w - r, 1));
+                    if (tWall < span) {
+                        ux += a * tWall;
+                        px = (ux < 0) ? r : w - r;
+                        ux = -ux * k;
+                        left -= tWall;
+                        continue;
+                    }
+                    px += (ux + 0.5 * a * span) * span;
+                    ux = (span < left) ? 0 : ux + a * span; // exactly 0 once friction has stopped it
+                    break;
+                }
+
+                double tFloor = timeOfImpact(py, uy, g, floor, 1);
+                double tCeil = timeOfImpact(py, uy, g, r, -1);
+                double tWall = Math.min(timeOfImpact(px, ux, 0, r, -1), timeOfImpact(px, ux, 0, w - r, 1));
+                double t = Math.min(left, Math.min(tFloor, Math.min(tCeil, tWall)));
+                px += ux * t;
+                py += (uy + 0.5 * g * t) * t;
+                uy += g * t;
+                left -= t;
+                if (t == tFloor) {
+                    //Ground: kill tiny bounces so the ball settles
+                    py = floor;
+                    if (Math.abs(uy) < SETTLE_SPEED) {
+                        uy = 0;
+                        rolling = true;
+                    } else {
+                        uy = -uy * k;
+                    }
+                } else if (t == tCeil) {
+                    py = r;
+                    uy = -uy * k;
+                } else if (t == tWall) {
+                    px = (ux < 0) ? r : w - r;
+                    ux = -ux * k;
+                }
+            }
+            if (left > 0) {
+                //Out of impacts (a ball chattering between two surfaces): spend the rest of the step on the
+                //current path, held inside the box, so the ball still moves for the whole dt
+                if (rolling) {
+                    double a = -friction * Math.signum(ux);
+                    double span = (a != 0) ? Math.min(left, -ux / a) : left;
+                    px += (ux + 0.5 * a * span) * span;
+                    ux = (span < left) ? 0 : ux + a * span;
+                } else {
+                    px += ux * left;
+                    py += (uy + 0.5 * g * left) * left;
+                    uy += g * left;
+                }
+                if (px < r || px > w - r) {
+                    px = Math.max(r, Math.min(w - r, px));
+                    ux = 0;
+                }
+                if (py < r) {
+                    py = r;
+                    uy = 0;
+                } else if (py >= floor) { //reached the floor: it rests there
+                    py = floor;
+                    uy = 0;
+                    rolling = true;
+                }
+            }
+
+            boolean grounded = rolling;
+            if (!grounded && supported[i]) { //Rolling on other balls: floor friction over the step, never reversing
+                double f = friction * dt;
+                ux = (Math.abs(ux) <= f) ? 0 : ux - f * Math.signum(ux);
+            }
+
+            x[i] = px;
+            y[i] = py;
+            vx[i] = ux;
+            vy[i] = uy;
+            onGround[i] = grounded;
+        }
+    }
+
+    /**
+     * Earliest t > 0 at which p + v t + a t^2 / 2 reaches target while moving
+     * in direction dir (+1 or -1), or +infinity. A start already at or past the
+     * target and still heading into it is an impact at t = 0.
+     */
+    static double timeOfImpact(double p, double v, double a, double target, int dir) {
+        double c = p - target;
+        if (c * dir >= 0 && (v * dir > 0 || (v == 0 && a * dir > 0)))
+            return 0;
+        double t = Double.POSITIVE_INFINITY;
+        if (a == 0) {
+            if (v * dir > 0)
+                t = -c / v;
+            return (t > 0) ? t : Double.POSITIVE_INFINITY;
+        }
+        double disc = v * v - 2 * a * c;
+        if (disc < 0)
+            return t;
+        //Roots of (a/2) t^2 + v t + c in the cancellation-free form
+        double q = -0.5 * (v + Math.copySign(Math.sqrt(disc), v));
+        double t1 = q / (0.5 * a), t2 = (q != 0) ? c / q : t1;
+        double lo = Math.min(t1, t2), hi = Math.max(t1, t2);
+        if (lo > 0 && (v + a * lo) * dir > 0)
+            return lo;
+        if (hi > 0 && (v + a * hi) * dir > 0)
+            return hi;
+        return t;
+    }
+
+    //Rest: slow enough on the ground or on other balls. In a pile gravity and the contacts keep trading
+    //a step's worth of speed, so there a ball that has (nearly) stopped moving counts too. Its motion is
+    //averaged over two steps, since a ball wedged between resting ones can rock back and forth in place.
+    private void settle(int from, int to, double dt, boolean contacts) {
+        final double still = 2 * REST_SPEED * dt;
+        for (int a = from; a < to; a++) {
+            int i = awake[a];
+            boolean resting = onGround[i] || supported[i];
+            boolean settled = false;
+            if (contacts) {
+                double dx = x[i] - startX[i], dy = y[i] - startY[i];
+                settled = Math.abs(dx + lastDx[i]) < still && Math.abs(dy + lastDy[i]) < still;
+                lastDx[i] = dx;
+                lastDy[i] = dy;
+            }
+            if (resting && ((Math.abs(vx[i]) < 0.5 && Math.abs(vy[i]) < 0.5) || settled)) {
+                stopped[i] = true;
+                vx[i] = vy[i] = 0;
+            }
+        }
+    }
+
+    @FunctionalInterface
+    private interface Range {
+        void run(int from, int to);
+    }
+
+    //body over [0, n) in slices of at least minSlice: as pool tasks in PARALLEL mode, else inline
+    private void forRange(int n, int minSlice, Range body) {
+        int tasks = (stepMode == StepMode.PARALLEL) ? Math.min(n / minSlice, 4 * pool.getParallelism()) : 1;
+        if (tasks <= 1) {
+            body.run(0, n);
+            return;
+        }
+        List<Callable<Void>> jobs = new ArrayList<>(tasks);
+        for (int t = 0; t < tasks; t++) {
+            int from = (int) ((long) n * t / tasks), to = (int) ((long) n * (t + 1) / tasks);
+            jobs.add(() -> {
+                body.run(from, to);
+                return null;
+            });
+        }
+        try {
+            for (Future<Void> f : pool.invokeAll(jobs)) f.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Physics step interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Physics step failed", e.getCause());
+        }
+    }
+
+    /* ========================= Collisions ========================= */
+
+    private int cellOf(double px, double py) {
+        int cx = Math.min(cols - 1, Math.max(0, (int) (px / cell)));
+        int cy = Math.min(rows - 1, Math.max(0, (int) (py / cell)));
+        return cy * cols + cx;
+    }
+
+    //First ball of cell c: its awake balls chain on into its sleepers
+    private int head(int c) {
+        return (awakeStamp[c] == epoch) ? awakeHead[c] : sleepHead[c];
+    }
+
+    //Link the awake balls into their cells, and list the cells that solve a contact with one: its own
+    //cell and the 4 cells whose right and lower neighbours include it (left, above-left, above, above-right)
+    private void buildGrid() {
+        int stamp = ++epoch;
+        for (int a = awakeCount - 1; a >= 0; a--) { //backwards, so each cell lists its balls in index order
+            int i = awake[a];
+            int c = cellOf(x[i], y[i]);
+            ballCell[i] = c;
+            next[i] = (awakeStamp[c] == stamp) ? awakeHead[c] : sleepHead[c];
+            awakeStamp[c] = stamp;
+            awakeHead[c] = i;
+        }
+        int cells = cols * rows, n = 0;
+        solveAll = 5 * awakeCount >= cells;
+        if (solveAll)
+            return;
+        for (int a = 0; a < awakeCount; a++) {
+            int c = ballCell[awake[a]], cx = c % cols, cy = c / cols;
+            for (int dy = -1; dy <= 0; dy++) {
+                for (int dx = -1; dx <= 1; dx++) {
+                    int hx = cx + dx, hy = cy + dy;
+                    if ((dy == 0 && dx > 0) || hx < 0 || hx >= cols || hy < 0)
+                        continue;
+                    int h = hy * cols + hx;
+                    if (solveStamp[h] != stamp) {
+                        solveStamp[h] = stamp;
+                        int colour = (1 - hy % 2) * 3 + hx % 3; // odd rows first, see collide()
+                        solveCells[n++] = colour * cells + h;
+                    }
+                }
+            }
+        }
+        Arrays.sort(solveCells, 0, n);
+        for (int b = 0, k = 0; b <= 6; b++) {
+            while (k < n && solveCells[k] < b * cells)
+                k++;
+            batchStart[b] = k;
+        }
+    }
+
+    //One pass over every touching pair with an awake ball, in colour batches (column mod 3, row mod 2).
+    //Each cell solves its own pairs and those with the 4 cells right and below, so each pair is seen once
+    //and two cells of a colour never touch the same ball. Later rows first, so support from below tends
+    //to settle first.
+    private void collide() {
+        if (solveAll) {
+            for (int py = 1; py >= 0; py--) {
+                for (int px = 0; px < 3; px++) {
+                    int rowParity = py, colPhase = px;
+                    int batchRows = (rows - rowParity + 1) / 2;
+                    forRange(batchRows, Math.max(1, MIN_CELLS_PER_TASK / cols), (from, to) -> {
+                        for (int k = from; k < to; k++)
+                            for (int cx = colPhase, cy = rowParity + 2 * k; cx < cols; cx += 3)
+                                collideCell(cx, cy);
+                    });
+                }
+            }
+            return;
+        }
+        int cells = cols * rows;
+        for (int b = 0; b < 6; b++) {
+            int first = batchStart[b];
+            forRange(batchStart[b + 1] - first, MIN_CELLS_PER_TASK, (from, to) -> {
+                for (int k = first + from; k < first + to; k++) {
+                    int c = solveCells[k] % cells;
+                    collideCell(c % cols, c / cols);
+                }
+            });
+        }
+    }
+
+    private void collideCell(int cx, int cy) {
+        int c = cy * cols + cx;
+        for (int i = head(c); i >= 0; i = next[i]) {
+            for (int j = next[i]; j >= 0; j = next[j])
+                resolvePair(i, j);
+            if (cx + 1 < cols)
+                resolveCell(i, c + 1);
+            if (cy + 1 < rows) {
+                if (cx > 0)
+                    resolveCell(i, c + cols - 1);
+                resolveCell(i, c + cols);
+                if (cx + 1 < cols)
+                    resolveCell(i, c + cols + 1);
+            }
+        }
+    }
+
+    private void resolveCell(int i, int c) {
+        for (int j = head(c); j >= 0; j = next[j])
+            resolvePair(i, j);
+    }
+
+    //Two sleepers have nothing to solve
+    private void resolvePair(int i, int j) {
+        if (!(stopped[i] && stopped[j]))
+            resolve(i, j);
+    }
+
+    //Sleepers around the awake balls (where they started the step and where they are now) wake when a
+    //hit has already woken them in resolve(), or when nothing holds them up any more: not on the ground
+    //and no ball below within touching distance. Run on one thread, in a fixed order.
+    private void wakeSleepers() {
+        if (count - awakeCount == 0)
+            return;
+        int stamp = epoch, n = 0;
+        if (solveAll) { //most balls move: every cell is near one
+            for (int c = 0; c < cols * rows; c++) {
+                wakeStamp[c] = stamp;
+                wakeCells[n++] = c;
+            }
+        } else {
+            for (int a = 0; a < awakeCount; a++) {
+                int i = awake[a];
+                n = markAround(cellOf(startX[i], startY[i]), stamp, n);
+                n = markAround(ballCell[i], stamp, n);
+            }
+            Arrays.sort(wakeCells, 0, n);
+        }
+        //Decide first, then wake: waking unlinks sleepers from the lists the support test walks.
+        //A sleeper a hit woke can have woken others in turn, so the cells around it are searched too.
+        int w = 0;
+        for (int k = 0; k < n; k++) {
+            for (int j = sleepHead[wakeCells[k]]; j >= 0; j = next[j]) {
+                if (!stopped[j]) {
+                    woken[w++] = j;
+                    n = markAround(sleepCell[j], stamp, n);
+                    n = markAround(cellOf(x[j], y[j]), stamp, n);
+                } else if (!onGround[j] && !restsOnBall(j, sleepCell[j])) {
+                    woken[w++] = j;
+                }
+            }
+        }
+        for (int k = 0; k < w; k++)
+            wake(woken[k]);
+    }
+
+    private int markAround(int c, int stamp, int n) {
+        int cx = c % cols, cy = c / cols;
+        for (int hy = Math.max(0, cy - 1); hy <= Math.min(rows - 1, cy + 1); hy++) {
+            for (int hx = Math.max(0, cx - 1); hx <= Math.min(cols - 1, cx + 1); hx++) {
+                int h = hy * cols + hx;
+                if (wakeStamp[h] != stamp) {
+                    wakeStamp[h] = stamp;
+                    wakeCells[n++] = h;
+                }
+            }
+        }
+        return n;
+    }
+
+    //Ball j, listed in cell c, touches a ball below it (the same test that marks a ball supported in resolve())
+    private boolean restsOnBall(int j, int c) {
+        int cx = c % cols, cy = c / cols;
+        double reach = 2 * radius + 0.5;
+        for (int hy = cy; hy <= Math.min(rows - 1, cy + 1); hy++) {
+            for (int hx = Math.max(0, cx - 1); hx <= Math.min(cols - 1, cx + 1); hx++) {
+                for (int k = head(hy * cols + hx); k >= 0; k = next[k]) {
+                    double dx = x[k] - x[j], dy = y[k] - y[j];
+                    if (dy > 0 && dx * dx + dy * dy < reach * reach)
+                        return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    //Narrowphase: separate an overlapping pair and apply the impulse along the normal i -> j
+    private void resolve(int i, int j) {
+        double dx = x[j] - x[i], dy = y[j] - y[i];
+        double d2 = dx * dx + dy * dy, reach = 2 * radius;
+        if (d2 >= (reach + 0.5) * (reach + 0.5)) // touching within half a pixel still supports, like the ground
+            return;
+        double d = Math.sqrt(d2);
+        double nx = 1, ny = 0; // coincident centres: push apart sideways
+        if (d > 0) {
+            nx = dx / d;
+            ny = dy / d;
+        }
+        //The upper ball leans on the lower one (a ball wedged in a pocket leans on both sides)
+        if (ny > 0)
+            supported[i] = true;
+        else if (ny < 0)
+            supported[j] = true;
+
+        boolean fixedI = stopped[i], fixedJ = stopped[j];
+        if ((fixedI && fixedJ) || d >= reach)
+            return;
+        double vn = (vx[j] - vx[i]) * nx + (vy[j] - vy[i]) * ny; // < 0 when approaching
+
+        //A hard hit wakes a resting ball, otherwise it stays put
+        if (-vn > settleSpeed && (fixedI || fixedJ)) {
+            stopped[fixedI ? i : j] = false;
+            fixedI = fixedJ = false;
+        }
+
+        //Shock propagation: a ball standing on the ground (or on a supported ball) carries whatever
+        //rests on it like a fixed body, so a tall pile does not sink into itself. Resting contacts don't
+        //bounce. A sleeper stays the fixed one, or both would be fixed and the sleeper pushed anyway.
+        boolean resting = false;
+        if (ny > 0.5 && (onGround[j] || supported[j])) {
+            resting = true;
+            fixedJ |= !fixedI;
+        } else if (ny < -0.5 && (onGround[i] || supported[i])) {
+            resting = true;
+            fixedI |= !fixedJ;
+        }
+
+        double overlap = reach - d;
+        double shareI = fixedI ? 0 : (fixedJ ? 1 : 0.5), shareJ = 1 - shareI;
+        x[i] -= nx * overlap * shareI;
+        y[i] -= ny * overlap * shareI;
+        x[j] += nx * overlap * shareJ;
+        y[j] += ny * overlap * shareJ;
+
+        if (vn < 0) {
+            double e = (resting || -vn < settleSpeed) ? 0 : rebound;
+            double impulse = -(1 + e) * vn; // total change of the relative normal speed
+            vx[i] -= nx * impulse * shareI;
+            vy[i] -= ny * impulse * shareI;
+            vx[j] += nx * impulse * shareJ;
+            vy[j] += ny * impulse * shareJ;
+        }
+    }
+
+    //A ball pushed back out of a pile keeps the speed it fell in with unless something removes it; take
+    //away the part of its velocity against the push, at most push/dt. This only ever removes energy.
+    private void absorbCorrections(int from, int to, double dt) {
+        for (int a = from; a < to; a++) {
+            int i = awake[a];
+            double cx = x[i] - preX[i], cy = y[i] - preY[i];
+            double c2 = cx * cx + cy * cy;
+            if (c2 == 0)
+                continue;
+            double c = Math.sqrt(c2), ux = cx / c, uy = cy / c;
+            double against = -(vx[i] * ux + vy[i] * uy);
+            if (against > 0) {
+                double cut = Math.min(against, c / dt);
+                vx[i] += ux * cut;
+                vy[i] += uy * cut;
+            }
+        }
+    }
+
+    //Separation can push a ball through the floor or a wall: put it back and drop the speed into it
+    private void clampToBox(int from, int to) {
+        double r = radius;
+        for (int a = from; a < to; a++) {
+            int i = awake[a];
+            if (x[i] < r) {
+                x[i] = r;
+                vx[i] = Math.max(0, vx[i]);
+            } else if (x[i] > width - r) {
+                x[i] = width - r;
+                vx[i] = Math.min(0, vx[i]);
+            }
+            if (y[i] < r) {
+                y[i] = r;
+                vy[i] = Math.max(0, vy[i]);
+            } else if (y[i] >= groundY - r) {
+                y[i] = groundY - r;
+                vy[i] = Math.min(0, vy[i]);
+                onGround[i] = true;
+            }
+        }
+    }
+}
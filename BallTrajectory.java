@@ -0,0 +1,183 @@
+import java.util.Arrays;
+
+/**
+ * Closed-form path of one ball bouncing in a box, from its start to rest.
+ *
+ * The motion has no state besides time: gravity is constant, every bounce keeps
+ * `rebound` of the speed, and friction on the floor is a constant deceleration.
+ * So the whole path is solved once, up front, as a list of segments between
+ * events (bounces, landing on the floor, stopping). Each segment is a
+ * polynomial in time: a parabola in flight, a constant deceleration while
+ * rolling, and a final segment at rest. Position and velocity at any time t are
+ * a binary search over the event times plus one polynomial evaluation, with no
+ * integration and no dependence on which times were asked for before.
+ *
+ * The rules are BallSystem's swept ones (same floor, walls, ceiling, settle
+ * speed and friction), so a BallSystem with this single ball follows the same
+ * path. The trajectory is immutable: any number of threads can evaluate it,
+ * e.g. to render frames of an offline sequence out of order or in parallel.
+ */
+public final class BallTrajectory {
+
+    //Guard against parameters that never come to rest (checked in the constructor, but bounces can be many)
+    private static final int MAX_EVENTS = 1 << 16;
+
+    //Segment k starts at start[k] with position (x0, y0), velocity (vx0, vy0) and acceleration (ax, ay).
+    //The last segment is the ball at rest and lasts forever.
+    private double[] start, x0, y0, vx0, vy0, ax, ay;
+    private int segments;
+
+    /**
+     * Solve the path of a ball of the given radius starting at (x, y) with
+     * velocity (vx, vy), inside the box [0, width] x [0, groundY].
+     *
+     * @throws IllegalArgumentException if the ball would never come to rest
+     *         (gravity and mu must be positive, rebound below 1)
+     */
+    public BallTrajectory(double x, double y, double vx, double vy, double radius, double gravity, double rebound,
+            double mu, double width, double groundY) {
+        if (!(gravity > 0) || !(mu > 0) || !(rebound >= 0 && rebound < 1))
+            throw new IllegalArgumentException("Ball never comes to rest: gravity " + gravity + ", mu " + mu
+                    + ", rebound " + rebound);
+        start = new double[16];
+        x0 = new double[16];
+        y0 = new double[16];
+        vx0 = new double[16];
+        vy0 = new double[16];
+        ax = new double[16];
+        ay = new double[16];
+
+        final double r = radius, g = gravity, k = rebound, w = width, floor = groundY - radius;
+        final double friction = mu * g;
+        double t = 0, px = x, py = y, ux = vx, uy = vy;
+        boolean rolling = false; //starts in flight, a ball placed on the floor lands at once
+        while (true) {
+            if (segments >= MAX_EVENTS)
+                throw new IllegalStateException("Ball does not come to rest within " + MAX_EVENTS + " events");
+            if (rolling) {
+                if (ux == 0)
+                    break;
+                double a = -friction * Math.signum(ux);
+                double tStop = -ux / a;
+                double tWall = Math.min(BallSystem.timeOfImpact(px, ux, a, r, -1),
+                        BallSystem.timeOfImpact(px, ux, a, w - r, 1));
+                double te = Math.min(tStop, tWall);
+                add(t, px, py, ux, 0, a, 0);
+                px += (ux + 0.5 * a * te) * te;
+                ux = (te == tStop) ? 0 : ux + a * te;
+                t += te;
+                if (te == tWall && te < tStop) {
+                    px = (ux < 0) ? r : w - r;
+                    ux = -ux * k;
+                }
+                continue;
+            }
+
+            double tFloor = BallSystem.timeOfImpact(py, uy, g, floor, 1);
+            double tCeil = BallSystem.timeOfImpact(py, uy, g, r, -1);
+            double tWall = Math.min(BallSystem.timeOfImpact(px, ux, 0, r, -1),
+                    BallSystem.timeOfImpact(px, ux, 0, w - r, 1));
+            double te = Math.min(tFloor, Math.min(tCeil, tWall));
+            add(t, px, py, ux, uy, 0, g);
+            px += ux * te;
+            py += (uy + 0.5 * g * te) * te;
+            uy += g * te;
+            t += te;
+            if (te == tFloor) {
+                py = floor;
+                if (Math.abs(uy) < BallSystem.SETTLE_SPEED) {
+                    uy = 0;
+                    rolling = true;
+                } else {
+                    uy = -uy * k;
+                }
+            } else if (te == tCeil) {
+                py = r;
+                uy = -uy * k;
+            } else {
+                px = (ux < 0) ? r : w - r;
+                ux = -ux * k;
+            }
+        }
+        add(t, px, floor, 0, 0, 0, 0);
+        start = Arrays.copyOf(start, segments);
+        x0 = Arrays.copyOf(x0, segments);
+        y0 = Arrays.copyOf(y0, segments);
+        vx0 = Arrays.copyOf(vx0, segments);
+        vy0 = Arrays.copyOf(vy0, segments);
+        ax = Arrays.copyOf(ax, segments);
+        ay = Arrays.copyOf(ay, segments);
+    }
+
+    private void add(double t, double px, double py, double ux, double uy, double accX, double accY) {
+        if (segments == start.length) {
+            int n = 2 * segments;
+            start = Arrays.copyOf(start, n);
+            x0 = Arrays.copyOf(x0, n);
+            y0 = Arrays.copyOf(y0, n);
+            vx0 = Arrays.copyOf(vx0, n);
+            vy0 = Arrays.copyOf(vy0, n);
+            ax = Arrays.copyOf(ax, n);
+            ay = Arrays.copyOf(ay, n);
+        }
+        start[segments] = t;
+        x0[segments] = px;
+        y0[segments] = py;
+        vx0[segments] = ux;
+        vy0[segments] = uy;
+        ax[segments] = accX;
+        ay[segments] = accY;
+        segments++;
+    }
+
+    /** Number of events: bounces, landing and stopping, plus the start. */
+    public int events() {
+        return segments;
+    }
+
+    /** Time (s) of event k; event 0 is the start, the last one is the moment the ball stops. */
+    public double eventTime(int k) {
+        return start[k];
+    }
+
+    /** Time (s) at which the ball comes to rest. */
+    public double restTime() {
+        return start[segments - 1];
+    }
+
+    public boolean isResting(double t) {
+        return t >= restTime();
+    }
+
+    //Segment in effect at time t (times before the start clamp to the first)
+    private int segmentAt(double t) {
+        int k = Arrays.binarySearch(start, t);
+        if (k < 0)
+            return Math.max(0, -k - 2);
+        while (k + 1 < segments && start[k + 1] == t) //several events at one instant: the state after the last
+            k++;
+        return k;
+    }
+
+    public double x(double t) {
+        int k = segmentAt(t);
+        double s = Math.max(0, t - start[k]);
+        return x0[k] + (vx0[k] + 0.5 * ax[k] * s) * s;
+    }
+
+    public double y(double t) {
+        int k = segmentAt(t);
+        double s = Math.max(0, t - start[k]);
+        return y0[k] + (vy0[k] + 0.5 * ay[k] * s) * s;
+    }
+
+    public double vx(double t) {
+        int k = segmentAt(t);
+        return vx0[k] + ax[k] * Math.max(0, t - start[k]);
+    }
+
+    public double vy(double t) {
+        int k = segmentAt(t);
+        return vy0[k] + ay[k] * Math.max(0, t - start[k]);
+    }
+}
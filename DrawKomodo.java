@@ -6,7 +6,7 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 
-public class DrawKomodo extends JPanel implements Runnable {
+public class DrawKomodo extends JPanel implements Runnable, OfflineScene {
     public static final int W = 600, H = 600;
 
     // ===== Named constants =====
@@ -70,7 +70,14 @@ public class DrawKomodo extends JPanel implements Runnable {
         });
     }
 
+    private final SimulationClock clock; // time source of run()
+
     public DrawKomodo() {
+        this(SimulationClock.realTime());
+    }
+
+    public DrawKomodo(SimulationClock clock) {
+        this.clock = clock;
         setPreferredSize(new Dimension(W, H));
         setBackground(Color.WHITE);
         setDoubleBuffered(true);
@@ -92,12 +99,8 @@ public class DrawKomodo extends JPanel implements Runnable {
 
     @Override
     public void run() {
-        double lastTime = System.currentTimeMillis();
         while (running) {
-            double now = System.currentTimeMillis();
-            double dt = (now - lastTime) / 1000.0;
-            lastTime = now;
-            elapsedSec += dt;
+            step(clock.tick());
             repaint();
             try {
                 Thread.sleep(1);
@@ -108,6 +111,30 @@ public class DrawKomodo extends JPanel implements Runnable {
         }
     }
 
+    @Override
+    public void step(double dt) {
+        elapsedSec += dt;
+    }
+
+    @Override
+    public void renderFrame(Graphics2D g, int width, int height) {
+        if (getWidth() != W || getHeight() != H)
+            setSize(W, H);
+        Graphics2D gg = OfflineScene.letterbox(g, width, height, W, H);
+        paintComponent(gg);
+        gg.dispose();
+    }
+
+    @Override
+    public int frameWidth() {
+        return W;
+    }
+
+    @Override
+    public int frameHeight() {
+        return H;
+    }
+
     @Override
     protected void paintComponent(Graphics g) {
         super.paintComponent(g);
@@ -142,6 +169,9 @@ public class DrawKomodo extends JPanel implements Runnable {
 
         Graphics2D worldG = (Graphics2D) g2.create();
         worldG.transform(view);
+        int detail = OfflineScene.detailOf(g2);
+        if (detail > 1) // hi-res target: the zoom magnifies world rounding too, so refine by it as well
+            worldG.setRenderingHint(OfflineScene.DETAIL, (int) Math.ceil(detail * zoom));
 
         // WORLD: mountains + river + komodo 
         drawBackgroundWorld(worldG);
@@ -335,24 +365,46 @@ public class DrawKomodo extends JPanel implements Runnable {
         return left;
     }
 
+    // Vertices are rounded at detail x the logical grid and drawn under a 1/detail scale,
+    // so a large target gets device-pixel vertices instead of a stretched 1x outline
     private static void fillPoly(Graphics2D g2, List<Point2D.Double> poly) {
+        int k = OfflineScene.detailOf(g2);
         int[] xs = new int[poly.size()];
         int[] ys = new int[poly.size()];
         for (int i = 0; i < poly.size(); i++) {
-            xs[i] = (int) Math.round(poly.get(i).x);
-            ys[i] = (int) Math.round(poly.get(i).y);
+            xs[i] = (int) Math.round(poly.get(i).x * k);
+            ys[i] = (int) Math.round(poly.get(i).y * k);
         }
+        if (k == 1) {
+            g2.fillPolygon(xs, ys, poly.size());
+            return;
+        }
+        AffineTransform old = g2.getTransform();
+        g2.scale(1.0 / k, 1.0 / k);
         g2.fillPolygon(xs, ys, poly.size());
+        g2.setTransform(old);
     }
 
     private static void drawPoly(Graphics2D g2, List<Point2D.Double> poly) {
+        int k = OfflineScene.detailOf(g2);
         int[] xs = new int[poly.size()];
         int[] ys = new int[poly.size()];
         for (int i = 0; i < poly.size(); i++) {
-            xs[i] = (int) Math.round(poly.get(i).x);
-            ys[i] = (int) Math.round(poly.get(i).y);
+            xs[i] = (int) Math.round(poly.get(i).x * k);
+            ys[i] = (int) Math.round(poly.get(i).y * k);
+        }
+        if (k == 1) {
+            g2.drawPolygon(xs, ys, poly.size());
+            return;
         }
+        AffineTransform old = g2.getTransform();
+        Stroke oldStroke = g2.getStroke();
+        BasicStroke s = (BasicStroke) oldStroke;
+        g2.scale(1.0 / k, 1.0 / k);
+        g2.setStroke(new BasicStroke(s.getLineWidth() * k, s.getEndCap(), s.getLineJoin(), s.getMiterLimit()));
         g2.drawPolygon(xs, ys, poly.size());
+        g2.setStroke(oldStroke);
+        g2.setTransform(old);
     }
 
     private static List<Point2D.Double> translate(List<Point2D.Double> pts, double tx, double ty) {
@@ -2,6 +2,7 @@
 import javax.swing.*;
 import java.awt.*;
 import java.awt.geom.*;
+import java.awt.image.BufferedImage;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Random;
@@ -22,13 +23,15 @@ import static java.lang.Math.*;
  * - clip ในจอ → setClip ด้วย Polygon
  * =========================================================
  */
-public class FPS_Coding extends JPanel implements Runnable {
+public class FPS_Coding extends JPanel implements Runnable, OfflineScene {
 
     /* ========================= Canvas & Loop ========================= */
 
     static final int W = 600, H = 600;
+    static final long DEFAULT_SEED = 23;
     private volatile boolean running = true;
     private double t = 0.0, dtSec = 0.0;
+    private final SimulationClock clock;
 
     /*
      * ========================= State Machine =========================
@@ -45,6 +48,26 @@ public class FPS_Coding extends JPanel implements Runnable {
     private double impactDur = 0.45;
     private double phaseProg = 0.0;
 
+    /* ========================= Colours (interned, see Palette) ========================= */
+    private static final Color BG_COLOR = Palette.rgb(230, 238, 255);
+    private static final Color DESK_COLOR = Palette.rgb(194, 180, 160);
+    private static final Color POST_COLOR = Palette.rgb(85, 90, 110);
+    private static final Color BEZEL_COLOR = Palette.rgb(58, 62, 78);
+    private static final Color SCREEN_BG = Palette.rgb(24, 36, 70);
+    private static final Color CODE_COLOR = Palette.rgb(180, 230, 255);
+    private static final Color KEYBOARD_COLOR = Palette.rgb(72, 78, 95);
+    private static final Color KEY_COLOR = Palette.rgb(200, 208, 224);
+    private static final Color SLEEVE_COLOR = Palette.rgb(35, 95, 165);
+    private static final Color SKIN_COLOR = Palette.rgb(255, 220, 190);
+    private static final Color SKIN_SHADE = Palette.rgb(240, 200, 170);
+    private static final Color[] BLACK_RAMP = Palette.ramp(0, 0, 0);
+    private static final Color[] WHITE_RAMP = Palette.ramp(255, 255, 255);
+    private static final Color[] GLOW_RAMP = Palette.ramp(90, 190, 255);
+    private static final Color SHADOW_COLOR = BLACK_RAMP[40];
+    private static final Color KEY_HIGHLIGHT = WHITE_RAMP[60];
+    private static final Color NAIL_COLOR = Palette.rgba(255, 245, 235, 220);
+    private static final Color NAIL_HIGHLIGHT = WHITE_RAMP[120];
+
     /* ========================= Layout ========================= */
     private static Polygon polyRect(int x, int y, int w, int h) {
         Polygon p = new Polygon();
@@ -88,9 +111,8 @@ public class FPS_Coding extends JPanel implements Runnable {
     }
 
     private final List<Tap> pattern = new ArrayList<>();
-    private int patternIndex = 0;
-    private double tapTick = 0.0;
     private double tapInterval = 0.10;
+    private TapSchedule taps; // ทุกการกดของทั้งฉาก อบไว้ล่วงหน้าใน constructor
 
     /* ========================= Hands ========================= */
     private final Hand leftHand = Hand.left();
@@ -104,33 +126,83 @@ public class FPS_Coding extends JPanel implements Runnable {
         float speed;
         int width;
 
+        // ข้อความถูก rasterize ครั้งเดียวลง strip แล้ว blit ทุกเฟรม
+        BufferedImage strip;
+        int ascent;
+
         CodeLine(String s, int y, float v) {
             text = s;
             this.y = y;
             speed = v;
         }
+
+        /** วาดข้อความลงภาพ strip (anti-aliased เหมือน drawString บนจอ) */
+        void buildStrip(Font font, FontMetrics fm, Color color) {
+            width = fm.stringWidth(text);
+            ascent = fm.getAscent();
+            strip = new BufferedImage(Math.max(1, width + 2), Math.max(1, ascent + fm.getDescent()),
+                    BufferedImage.TYPE_INT_ARGB_PRE);
+            Graphics2D sg = strip.createGraphics();
+            sg.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+            sg.setFont(font);
+            sg.setColor(color);
+            sg.drawString(text, 0, ascent);
+            sg.dispose();
+        }
     }
 
     private final List<CodeLine> codeLines = new ArrayList<>();
     private final int codePadding = 14;
     private final Font codeFont = new Font("Consolas", Font.PLAIN, 14);
 
+    // พื้นที่โค้ดในจอ: clip มุมมน (ช้า) + แถบสี่เหลี่ยมด้านในที่ไม่โดนมุม (clip เร็ว / ไม่ต้อง clip)
+    private final int codeClipR = 8;
+    private final Polygon contentClip = roundRectPolygon(screenX + codePadding, screenY + codePadding,
+            screenW - 2 * codePadding, screenH - 2 * codePadding, codeClipR, 10);
+    private final Rectangle contentBand = new Rectangle(screenX + codePadding, screenY + codePadding + codeClipR,
+            screenW - 2 * codePadding, screenH - 2 * codePadding - 2 * codeClipR);
+
     /* ========================= Camera / Impact ========================= */
     private double camScale = 1.0, camDrop = 0.0;
-    private double camRot = 0.0, rotVel = 0.0;
+    // ค่าที่ขยับแบบสปริงทั้งหมดของฉาก (กล้องเอียง, มือยุบ/กาง) อยู่ใน SpringSystem เดียว
+    // ที่ substep คงที่ → dt ใหญ่แค่ไหนก็ไม่ระเบิด และผลไม่ขึ้นกับ fps
+    private final SpringSystem springs = new SpringSystem(32, 1.0 / 240);
+    private static final double ROLL_K = 90.0, ROLL_C = 6.0; // แกว่งตอนชน
+    private static final double SETTLE_OMEGA = 12.0; // คืนศูนย์หลังชนโดยไม่แกว่ง เร็วพอ ๆ กับ camRot *= 0.9 ต่อเฟรมที่ 60 fps เดิม
+    private final int camRot = springs.add(ROLL_K, ROLL_C);
+    // ประกายไฟ + ฝุ่นตอนหน้าฟาดคีย์บอร์ด: พิกัดจอ (หลังกล้อง) วาดทับ overlay ดำเป็นภาพเดียว
+    private static final ParticleSystem.Emitter IMPACT_SPARKS = new ParticleSystem.Emitter(
+            300, 1200, -PI / 2, 1.3, 30, 0.3, 1.0, 1.5, 1600, 2, Palette.rgb(255, 230, 150).getRGB());
+    private static final ParticleSystem.Emitter IMPACT_DUST = new ParticleSystem.Emitter(
+            40, 220, -PI / 2, PI, 120, 0.8, 2.2, 2.0, -20, 3, Palette.rgb(60, 55, 50).getRGB());
+    private final ParticleSystem particles = new ParticleSystem(8192);
+    private final long fxSeed;
     private double shakeAmp = 0.0;
-    private final Random rng = new Random(23);
+    private double shakeX = 0.0, shakeY = 0.0, shakeRot = 0.0; // สุ่มใน update (ไม่ใช่ตอน paint) → เฟรมเดิมได้ผลเดิม
+    private final Random rng;
 
     /* ========================= Constructor ========================= */
     public FPS_Coding() {
+        this(SimulationClock.realTime(), DEFAULT_SEED);
+    }
+
+    /** clock = แหล่งเวลาของ run(), seed = ค่าสุ่มทั้งหมดของฉาก (ความเร็ว/ตำแหน่งโค้ด, การสั่น) */
+    public FPS_Coding(SimulationClock clock, long seed) {
+        this.clock = clock;
+        this.rng = new Random(seed);
+        this.fxSeed = seed;
         setPreferredSize(new Dimension(W, H));
         setBackground(new Color(245, 248, 255));
         setDoubleBuffered(true);
 
         buildKeyboard();
         buildPattern();
+        taps = bakeTaps();
         initCodeLines();
 
+        leftHand.bind(springs);
+        rightHand.bind(springs);
+
         Point f = getKeyCenter(2, 3), j = getKeyCenter(2, 9);
         leftHand.setAnchor(f.x - 20, f.y + 22);
         rightHand.setAnchor(j.x + 20, j.y + 22);
@@ -151,13 +223,10 @@ public class FPS_Coding extends JPanel implements Runnable {
     /* ========================= Game loop ========================= */
     @Override
     public void run() {
-        double last = System.currentTimeMillis();
         while (running) {
-            double now = System.currentTimeMillis();
-            dtSec = (now - last) / 1000.0;
-            last = now;
+            dtSec = clock.tick();
 
-            update(dtSec);
+            step(dtSec);
             repaint();
             try {
                 Thread.sleep(1);
@@ -166,6 +235,31 @@ public class FPS_Coding extends JPanel implements Runnable {
         }
     }
 
+    /* ========================= Offline (OfflineScene) ========================= */
+    @Override
+    public void step(double dt) {
+        update(dt);
+    }
+
+    @Override
+    public void renderFrame(Graphics2D g, int width, int height) {
+        if (getWidth() != W || getHeight() != H)
+            setSize(W, H); // overlay ใช้ getWidth()/getHeight() → คงพิกัด logical ไว้
+        Graphics2D gg = OfflineScene.letterbox(g, width, height, W, H);
+        paintComponent(gg);
+        gg.dispose();
+    }
+
+    @Override
+    public int frameWidth() {
+        return W;
+    }
+
+    @Override
+    public int frameHeight() {
+        return H;
+    }
+
     /* ========================= Update ========================= */
     private void update(double dt) {
         t += dt;
@@ -183,6 +277,7 @@ public class FPS_Coding extends JPanel implements Runnable {
         } else if (state == Scene.IMPACT && phaseProg >= 1) {
             state = Scene.BLACKOUT;
             phaseProg = 0;
+            springs.setParams(camRot, SETTLE_OMEGA * SETTLE_OMEGA, 2 * SETTLE_OMEGA);
         }
 
         if (state == Scene.DIMMING)
@@ -195,38 +290,34 @@ public class FPS_Coding extends JPanel implements Runnable {
         if (state == Scene.CODING) {
             camScale = 1.0;
             camDrop = 0.0;
-            camRot = 0.0;
-            rotVel = 0.0;
+            springs.set(camRot, 0, 0);
         } else if (state == Scene.DIMMING) {
             double k = 1.0 - cos(PI * phaseProg);
             camScale = 1.0 + 0.05 * k;
             camDrop = 5.0 * k;
-            leftHand.extraDrop = (float) (8 * k);
-            rightHand.extraDrop = (float) (10 * k);
-            camRot = 0.0;
-            rotVel = 0.0;
+            leftHand.dropTo(8 * k);
+            rightHand.dropTo(10 * k);
+            springs.set(camRot, 0, 0);
         } else if (state == Scene.APPROACH) {
             double k = 1.0 - cos(PI * phaseProg);
             camScale = 1.0 + 0.60 * k;
             camDrop = 34 * k;
-            leftHand.extraDrop = (float) (28 * k);
-            rightHand.extraDrop = (float) (32 * k);
-            leftHand.extraSide = (float) (-14 * k);
-            rightHand.extraSide = (float) (14 * k);
-            camRot *= 0.9;
+            leftHand.dropTo(28 * k);
+            rightHand.dropTo(32 * k);
+            leftHand.sideTo(-14 * k);
+            rightHand.sideTo(14 * k);
         } else if (state == Scene.IMPACT) {
             shakeAmp = 1.0 * exp(-3.5 * phaseProg);
+            shakeX = (rng.nextDouble() * 2 - 1) * 6 * shakeAmp;
+            shakeY = (rng.nextDouble() * 2 - 1) * 4 * shakeAmp;
+            shakeRot = (rng.nextDouble() * 2 - 1) * Math.toRadians(0.7 * shakeAmp);
             camScale = 1.60;
             camDrop = 36;
-            double c = 6.0, k = 90.0;
-            rotVel += (-c * rotVel - k * camRot) * dt;
-            camRot += rotVel * dt;
-            leftHand.extraDrop = 38;
-            rightHand.extraDrop = 42;
+            leftHand.dropTo(38);
+            rightHand.dropTo(42);
         } else {
             camScale = 1.60;
             camDrop = 36;
-            camRot *= 0.9;
         }
 
         double speedMul = 0.0;
@@ -237,36 +328,122 @@ public class FPS_Coding extends JPanel implements Runnable {
             speedMul = 0.8 * (1.0 - 0.6 * phaseProg);
         }
 
-        tapTick += dt * speedMul;
-        if (!pattern.isEmpty() && tapTick >= tapInterval) {
-            tapTick = 0;
-            Tap tap = pattern.get(patternIndex);
-            patternIndex = (patternIndex + 1) % pattern.size();
-            Point key = getKeyCenter(tap.r, tap.c);
-            if (tap.hand == LEFT)
-                leftHand.tapFinger(tap.finger, key);
-            else if (tap.hand == RIGHT)
-                rightHand.tapFinger(tap.finger, key);
-            else
-                rightHand.tapThumb(getKeyCenter(4, 6));
-        }
-
-        leftHand.update(dt, t);
-        rightHand.update(dt, t);
+        springs.step(dt);
+        particles.step(dt);
+        leftHand.update(taps, LEFT, t);
+        rightHand.update(taps, RIGHT, t);
 
         float contentLeft = screenX + codePadding;
         float contentRight = screenX + screenW - codePadding;
         for (CodeLine cl : codeLines) {
             cl.x -= cl.speed * dt * (float) speedMul;
             if (cl.x + cl.width < contentLeft)
-                cl.x = contentRight + 40 + (float) (Math.random() * 80);
+                cl.x = contentRight + 40 + (float) (rng.nextDouble() * 80);
         }
     }
 
     private void onImpactStart() {
         double sign = rng.nextBoolean() ? 1 : -1;
-        camRot = toRadians(1.0 * sign);
-        rotVel = toRadians((220 + rng.nextInt(80)) * sign);
+        springs.setParams(camRot, ROLL_K, ROLL_C);
+        springs.set(camRot, toRadians(1.0 * sign), toRadians((220 + rng.nextInt(80)) * sign));
+
+        // จุดชน = ขอบบนกลางคีย์บอร์ด ผ่านกล้องช่วง IMPACT (scale 1.6, drop 36 แบบเดียวกับ paint) ไม่รวมการหมุน
+        double pivotY = deskY + deskH / 2.0;
+        double hx = W / 2.0, hy = pivotY + 1.60 * (keyboardY - pivotY + 36);
+        particles.emit(IMPACT_SPARKS, hx, hy, 900, fxSeed);
+        particles.emit(IMPACT_DUST, hx, hy, 1500, fxSeed + 1);
+    }
+
+    /* ========================= Tap schedule ========================= */
+
+    /*
+     * เวลาพิมพ์ τ(t) = ∫ speedMul dt ตามสถานะ (ตรงกับ speedMul ใน update):
+     * CODING 1 จนเหลือ 0.5 s แล้วลดเชิงเส้นจาก 1 ลง 0.3, DIMMING 0.8·(1 − 0.6·p), หลังจากนั้น 0
+     * ทุกช่วงเป็นเส้นตรง → τ เป็นพหุนามกำลังสองรายช่วง และหา t จาก τ ได้ตรง ๆ
+     * การกดครั้งที่ k เกิดที่ τ = k·tapInterval
+     */
+
+    /** t ที่ทำให้ τ(t) = tau (tau ไม่เกิน τ ตอนจบ DIMMING) */
+    private double typingTimeInverse(double tau) {
+        double slow = codeDuration - 0.5; // เริ่มช้าลง
+        if (tau <= slow)
+            return tau;
+        double q = tau - slow;
+        double slowTau = 0.5 - 0.7 * 0.25; // ∫ (1 − 1.4u) du ช่วง u ∈ [0, 0.5]
+        if (q <= slowTau)
+            return slow + quadraticRoot(0.7, q);
+        q = (q - slowTau) / 0.8; // DIMMING: ∫ (1 − 0.6 v/dim) dv
+        return codeDuration + quadraticRoot(0.3 / dimDuration, q);
+    }
+
+    /** รากที่เล็กกว่าของ u − c·u² = q (รูปไม่หักล้างกันเมื่อ c·q เล็ก) */
+    private static double quadraticRoot(double c, double q) {
+        return 2 * q / (1 + sqrt(max(0, 1 - 4 * c * q)));
+    }
+
+    /** อบทุกการกดตั้งแต่เริ่มจนพิมพ์หยุด (จบ DIMMING) ลงอาร์เรย์ */
+    private TapSchedule bakeTaps() {
+        double endTau = (codeDuration - 0.5) + (0.5 - 0.7 * 0.25) + 0.8 * 0.7 * dimDuration;
+        int n = pattern.isEmpty() ? 0 : (int) floor(endTau / tapInterval + 1e-9);
+        double[] time = new double[n];
+        float[] x = new float[n], y = new float[n];
+        int[] slot = new int[n];
+        for (int k = 0; k < n; k++) {
+            Tap tap = pattern.get(k % pattern.size());
+            time[k] = typingTimeInverse((k + 1) * tapInterval);
+            Point key = (tap.hand == THUMB) ? getKeyCenter(4, 6) : getKeyCenter(tap.r, tap.c);
+            x[k] = key.x;
+            y[k] = key.y;
+            if (tap.hand == THUMB) {
+                slot[k] = RIGHT * 5; // นิ้วโป้งขวา กดต่ำกว่ากลางปุ่ม 8 px
+                y[k] += 8;
+            } else {
+                slot[k] = tap.hand * 5 + max(1, min(4, tap.finger + 1));
+            }
+        }
+        return new TapSchedule(time, x, y, slot);
+    }
+
+    /**
+     * ตารางการกดที่อบแล้ว: การกดที่ k เกิดที่ time[k] ที่จุด (x[k], y[k]) ด้วยนิ้ว slot[k] = มือ·5 + นิ้ว
+     * (0 โป้ง .. 4 ก้อย) เรียงตามเวลา. ถามได้ทุกเวลาโดยตรง (binary search) → ไม่ต้องเดินทีละเฟรม
+     * ไม่สร้างอ็อบเจกต์ระหว่างเล่น และแบ่ง export หลายเธรดได้
+     */
+    static final class TapSchedule {
+        static final int SLOTS = 10;
+        final double[] time;
+        final float[] x, y;
+        final int[] slot;
+        private final int[] bySlot, slotStart; // index การกดจัดกลุ่มตามนิ้ว เรียงตามเวลาในกลุ่ม
+
+        TapSchedule(double[] time, float[] x, float[] y, int[] slot) {
+            this.time = time;
+            this.x = x;
+            this.y = y;
+            this.slot = slot;
+            slotStart = new int[SLOTS + 1];
+            for (int s : slot)
+                slotStart[s + 1]++;
+            for (int s = 0; s < SLOTS; s++)
+                slotStart[s + 1] += slotStart[s];
+            bySlot = new int[slot.length];
+            int[] fill = slotStart.clone();
+            for (int k = 0; k < slot.length; k++)
+                bySlot[fill[slot[k]]++] = k;
+        }
+
+        /** การกดล่าสุดของนิ้ว s ณ เวลา t, −1 = ยังไม่เคยกด */
+        int lastTap(int s, double t) {
+            int lo = slotStart[s], hi = slotStart[s + 1]; // หา index แรกที่ time > t
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                if (time[bySlot[mid]] <= t)
+                    lo = mid + 1;
+                else
+                    hi = mid;
+            }
+            return (lo > slotStart[s]) ? bySlot[lo - 1] : -1;
+        }
     }
 
     /* ========================= Keyboard build ========================= */
@@ -350,8 +527,19 @@ public class FPS_Coding extends JPanel implements Runnable {
         int gap = 22, y = top;
 
         for (int i = 0; i < lines.length && y < bottom; i++, y += gap) {
-            codeLines.add(new CodeLine(lines[i], y, 70 + (float) (Math.random() * 60)));
+            codeLines.add(new CodeLine(lines[i], y, 70 + (float) (rng.nextDouble() * 60)));
+        }
+
+        // สร้าง strip + ความกว้างตั้งแต่ต้น (ไม่รอ paint แรก) เพื่อให้ update ไม่ขึ้นกับการวาด
+        Graphics2D sg = new BufferedImage(1, 1, BufferedImage.TYPE_INT_ARGB).createGraphics();
+        sg.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+        FontMetrics fm = sg.getFontMetrics(codeFont);
+        float contentRight = screenX + screenW - codePadding;
+        for (CodeLine cl : codeLines) {
+            cl.buildStrip(codeFont, fm, CODE_COLOR);
+            cl.x = contentRight + (float) (rng.nextDouble() * 120);
         }
+        sg.dispose();
     }
 
     /* ========================= Painting ========================= */
@@ -366,23 +554,20 @@ public class FPS_Coding extends JPanel implements Runnable {
 
         g2.translate(pivotX, pivotY);
         g2.scale(camScale, camScale);
-        g2.rotate(camRot);
+        g2.rotate(springs.value(camRot));
         g2.translate(-pivotX, -pivotY + camDrop);
 
         if (state == Scene.IMPACT && shakeAmp > 0) {
-            double sx = (rng.nextDouble() * 2 - 1) * 6 * shakeAmp;
-            double sy = (rng.nextDouble() * 2 - 1) * 4 * shakeAmp;
-            double rot = (rng.nextDouble() * 2 - 1) * Math.toRadians(0.7 * shakeAmp);
-            g2.translate(sx, sy);
-            g2.rotate(rot, pivotX, pivotY);
+            g2.translate(shakeX, shakeY);
+            g2.rotate(shakeRot, pivotX, pivotY);
         }
 
         // พื้นหลัง (สี่เหลี่ยมด้วยโพลิกอน)
-        g2.setColor(new Color(230, 238, 255));
+        g2.setColor(BG_COLOR);
         fillRectPoly(g2, 0, 0, W, H);
 
         // โต๊ะ
-        g2.setColor(new Color(194, 180, 160));
+        g2.setColor(DESK_COLOR);
         fillRoundRectPoly(g2, deskX, deskY, deskW, deskH, 14, 8);
 
         // จอ + โค้ด
@@ -401,20 +586,28 @@ public class FPS_Coding extends JPanel implements Runnable {
         Graphics2D go = (Graphics2D) g.create();
         if (state == Scene.DIMMING) {
             float a = (float) (0.10 + 0.40 * phaseProg);
-            go.setColor(new Color(0, 0, 0, (int) (255 * a)));
+            go.setColor(Palette.alpha(BLACK_RAMP, a));
             fillRectPoly(go, 0, 0, getWidth(), getHeight());
         } else if (state == Scene.APPROACH) {
             float a = (float) min(1.0, 0.65 + 0.25 * phaseProg);
-            go.setColor(new Color(0, 0, 0, (int) (255 * a)));
+            go.setColor(Palette.alpha(BLACK_RAMP, a));
             fillRectPoly(go, 0, 0, getWidth(), getHeight());
         } else if (state == Scene.IMPACT) {
             float a = (float) min(1.0, 0.85 + 0.15 * phaseProg);
-            go.setColor(new Color(0, 0, 0, (int) (255 * a)));
+            go.setColor(Palette.alpha(BLACK_RAMP, a));
             fillRectPoly(go, 0, 0, getWidth(), getHeight());
         } else if (state == Scene.BLACKOUT) {
             go.setColor(Color.BLACK);
             fillRectPoly(go, 0, 0, getWidth(), getHeight());
         }
+        // อนุภาคทั้งหมดบวกสีลงภาพเดียวที่ความละเอียดจริงของเป้า (สเกลจาก transform ของอุปกรณ์) แล้ว blit ครั้งเดียว
+        if (particles.count() > 0) {
+            AffineTransform at = go.getTransform();
+            double ds = max(hypot(at.getScaleX(), at.getShearY()), hypot(at.getShearX(), at.getScaleY()));
+            BufferedImage fx = particles.overlay(max(1, (int) ceil(W * ds)), max(1, (int) ceil(H * ds)), ds);
+            if (fx != null)
+                go.drawImage(fx, 0, 0, W, H, null);
+        }
         go.dispose();
     }
 
@@ -424,17 +617,17 @@ public class FPS_Coding extends JPanel implements Runnable {
         int gap = 10, postW = 28, postH = Math.max(18, (deskY - (top + gap)) - 14);
 
         // เสา/ฐานจอ
-        g2.setColor(new Color(85, 90, 110));
+        g2.setColor(POST_COLOR);
         fillRoundRectPoly(g2, mx - postW / 2, top + gap, postW, postH, 10, 8);
         int baseW = 160, baseH = 14, baseY = deskY - baseH - 4;
         fillRoundRectPoly(g2, mx - baseW / 2, baseY, baseW, baseH, 10, 8);
 
         // เงาฐานจอ (วงรี)
-        g2.setColor(new Color(0, 0, 0, 40));
+        g2.setColor(SHADOW_COLOR);
         fillEllipsePoly(g2, mx, deskY - 0, (int) (baseW * 0.45), 6, 36);
 
         // กรอบจอ
-        g2.setColor(new Color(58, 62, 78));
+        g2.setColor(BEZEL_COLOR);
         fillRoundRectPoly(g2, screenX - 6, screenY - 6, screenW + 12, screenH + 12, 16, 12);
 
         double dim = switch (state) {
@@ -445,11 +638,10 @@ public class FPS_Coding extends JPanel implements Runnable {
         };
 
         float glow = (float) ((0.86 + 0.14 * sin(2 * PI * 0.7 * t)) * dim);
-        Color screenBg = new Color(24, 36, 70);
-        Color screenGlow = new Color(90, 190, 255, (int) (70 * glow));
+        Color screenGlow = GLOW_RAMP[(int) (70 * glow)];
 
         // พื้นจอ
-        g2.setColor(screenBg);
+        g2.setColor(SCREEN_BG);
         fillRoundRectPoly(g2, screenX, screenY, screenW, screenH, 12, 12);
 
         // glow ด้านใน
@@ -457,23 +649,34 @@ public class FPS_Coding extends JPanel implements Runnable {
         fillRoundRectPoly(g2, screenX + 6, screenY + 6, screenW - 12, screenH - 12, 10, 12);
 
         boolean showCode = (state == Scene.CODING) || (state == Scene.DIMMING);
-        if (showCode) {
+        if (showCode && !Sprite.pixelAligned(g2)) {
+            // กล้องซูม/หมุน หรือความละเอียดสูง: strip ถูกอบที่ 1x → วาดตัวอักษรตรงให้คมตามสเกล
             Shape oldClip = g2.getClip();
-            Polygon contentClip = roundRectPolygon(screenX + codePadding, screenY + codePadding,
-                    screenW - 2 * codePadding, screenH - 2 * codePadding, 8, 10);
-            g2.setClip(contentClip);
-
+            g2.clip(contentClip);
             g2.setFont(codeFont);
-            g2.setColor(new Color(180, 230, 255));
-            FontMetrics fm = g2.getFontMetrics();
-            float contentRight = screenX + screenW - codePadding;
+            g2.setColor(CODE_COLOR);
+            for (CodeLine cl : codeLines)
+                g2.drawString(cl.text, cl.x, cl.y);
+            g2.setClip(oldClip);
+        } else if (showCode) {
+            Shape oldClip = g2.getClip();
+            int bandL = contentBand.x, bandR = contentBand.x + contentBand.width;
+            int bandT = contentBand.y, bandB = contentBand.y + contentBand.height;
 
             for (CodeLine cl : codeLines) {
-                if (cl.width == 0) {
-                    cl.width = fm.stringWidth(cl.text);
-                    cl.x = contentRight + (float) (Math.random() * 120);
-                }
-                g2.drawString(cl.text, cl.x, cl.y);
+                int sx = Math.round(cl.x), sy = cl.y - cl.ascent;
+                int sw = cl.strip.getWidth(), sh = cl.strip.getHeight();
+                if (sx >= bandR || sx + sw <= bandL)
+                    continue; // อยู่นอกจอทั้งบรรทัด
+
+                // เลือก clip ที่ถูกที่สุด: ไม่ clip > clip สี่เหลี่ยม > clip โพลิกอนมุมมน (ตัดร่วมกับ clip ของผู้เรียกเสมอ)
+                boolean inBandY = sy >= bandT && sy + sh <= bandB;
+                g2.setClip(oldClip);
+                if (!inBandY)
+                    g2.clip(contentClip);
+                else if (sx < bandL || sx + sw > bandR)
+                    g2.clip(contentBand);
+                g2.drawImage(cl.strip, sx, sy, null);
             }
             g2.setClip(oldClip);
         }
@@ -481,7 +684,7 @@ public class FPS_Coding extends JPanel implements Runnable {
 
     private void drawKeyboard(Graphics2D g2) {
         // ฐานคีย์บอร์ด
-        g2.setColor(new Color(72, 78, 95));
+        g2.setColor(KEYBOARD_COLOR);
         fillRoundRectPoly(g2, keyboardX, keyboardY, keyboardW, keyboardH, 18, 12);
 
         // ปุ่มทั้งหมด
@@ -492,11 +695,11 @@ public class FPS_Coding extends JPanel implements Runnable {
                     continue;
 
                 // ปุ่ม
-                g2.setColor(new Color(200, 208, 224));
+                g2.setColor(KEY_COLOR);
                 fillRoundRectPoly(g2, k.x, k.y, k.w, k.h, 10, 8);
 
                 // ไฮไลต์ขอบบน
-                g2.setColor(new Color(255, 255, 255, 60));
+                g2.setColor(KEY_HIGHLIGHT);
                 fillRoundRectPoly(g2, k.x + 2, k.y + 2, k.w - 4, 4, 6, 6);
             }
         }
@@ -507,9 +710,14 @@ public class FPS_Coding extends JPanel implements Runnable {
         final Point2D.Float anchor = new Point2D.Float();
         final Finger[] fs;
         final float palmW = 74, palmH = 56;
-        final Color skin1 = new Color(255, 220, 190), skin2 = new Color(240, 200, 170);
+        final Color skin1 = SKIN_COLOR, skin2 = SKIN_SHADE;
         double phase;
-        float extraDrop = 0, extraSide = 0;
+        float extraDrop = 0, extraSide = 0; // อ่านจากสปริงทุก update()
+
+        // มือเลื่อนตามเป้าด้วยสปริงหน่วงเล็กน้อย (ω = 20, ζ = 0.7) → ตอนชนเด้งลงตำแหน่งใหม่แทนการกระโดด
+        static final double POSE_K = 400, POSE_C = 28;
+        private SpringSystem springs;
+        private int drop, side;
 
         private Hand(Finger[] fs, double ph) {
             this.fs = fs;
@@ -530,6 +738,21 @@ public class FPS_Coding extends JPanel implements Runnable {
             }, Math.PI / 3);
         }
 
+        /** จองสปริงของมือ (ยุบ, กาง) ใน s */
+        void bind(SpringSystem s) {
+            springs = s;
+            drop = s.add(POSE_K, POSE_C);
+            side = s.add(POSE_K, POSE_C);
+        }
+
+        void dropTo(double y) {
+            springs.setTarget(drop, y);
+        }
+
+        void sideTo(double x) {
+            springs.setTarget(side, x);
+        }
+
         void setAnchor(float x, float y) {
             anchor.setLocation(x, y);
         }
@@ -545,54 +768,72 @@ public class FPS_Coding extends JPanel implements Runnable {
             fs[idx].offsetY = dy;
         }
 
-        void tapFinger(int fingerIndex, Point key) {
-            int idx = Math.max(1, Math.min(4, fingerIndex + 1));
-            fs[idx].pressAt(key.x, key.y);
-        }
-
-        void tapThumb(Point key) {
-            fs[0].pressAt(key.x, key.y + 8);
+        /** ท่ามือ ณ เวลา t: ค่าสปริงของมือ + นิ้วแต่ละนิ้วจากการกดล่าสุดของมันใน taps (hand = LEFT/RIGHT) */
+        void update(TapSchedule taps, int hand, double t) {
+            extraDrop = (float) springs.value(drop);
+            extraSide = (float) springs.value(side);
+            for (int i = 0; i < fs.length; i++) {
+                int k = taps.lastTap(hand * 5 + i, t);
+                if (k >= 0)
+                    fs[i].pressAt(taps.x[k], taps.y[k], t - taps.time[k]);
+            }
         }
 
-        void update(double dt, double tg) {
-            for (Finger f : fs)
-                f.update(dt);
-        }
+        // เงาและฝ่ามือไม่เปลี่ยนรูป → วาดลง sprite ครั้งเดียวต่อมือ (ใช้เฉพาะเมื่อ transform เลื่อนเป็นพิกเซลเต็ม)
+        private Sprite shadowSprite, palmSprite;
 
         void draw(Graphics2D g2, boolean isLeft) {
-            Graphics2D gg = (Graphics2D) g2.create();
+            if (!Sprite.pixelAligned(g2)) {
+                drawVector(g2, isLeft);
+                return;
+            }
+            if (shadowSprite == null) {
+                shadowSprite = Sprite.ellipse((int) (palmW * 0.42), 9, 36, SHADOW_COLOR);
+                palmSprite = Sprite.gradientRoundRect((int) palmW, (int) palmH, 22, 10, skin1, skin2);
+            }
 
             // เงามือ (วงรี)
-            gg.setColor(new Color(0, 0, 0, 40));
-            fillEllipsePoly(gg,
-                    (int) (anchor.x + extraSide),
-                    (int) (anchor.y + 26 + extraDrop),
-                    (int) (palmW * 0.42),
-                    9,
-                    36);
+            shadowSprite.draw(g2, (int) (anchor.x + extraSide), (int) (anchor.y + 26 + extraDrop));
 
             // ฝ่ามือ (โพลิกอนมุมมน + ไล่สี)
-            Paint grad = new GradientPaint(anchor.x + extraSide, anchor.y + extraDrop - palmH / 2, skin1,
-                    anchor.x + extraSide, anchor.y + extraDrop + palmH / 2, skin2);
-            gg.setPaint(grad);
-            fillRoundRectPoly(gg,
+            palmSprite.draw(g2,
                     (int) (anchor.x - palmW / 2 + extraSide),
-                    (int) (anchor.y - palmH / 2 + extraDrop),
-                    (int) palmW, (int) palmH, 22, 10);
+                    (int) (anchor.y - palmH / 2 + extraDrop));
 
             // นิ้ว (หลังสุด → หน้า)
-            int[] order = { 4, 3, 2, 1, 0 };
-            for (int i : order)
-                fs[i].draw(gg, new Point2D.Float(anchor.x + extraSide, anchor.y + extraDrop), isLeft);
+            float ax = anchor.x + extraSide, ay = anchor.y + extraDrop;
+            for (int i = fs.length - 1; i >= 0; i--)
+                fs[i].draw(g2, ax, ay, isLeft);
+
+            drawSleeve(g2);
+        }
+
+        /** กล้องซูม/หมุน/สั่น หรือความละเอียดสูง: วาดโพลิกอนตรงแทน sprite ที่อบไว้ที่ 1x (ไม่แตกเป็นบล็อก ไม่กระตุกทีละพิกเซล) */
+        private void drawVector(Graphics2D g2, boolean isLeft) {
+            float ax = anchor.x + extraSide, ay = anchor.y + extraDrop;
+
+            g2.setColor(SHADOW_COLOR);
+            fillEllipsePoly(g2, (int) ax, (int) (anchor.y + 26 + extraDrop), (int) (palmW * 0.42), 9, 36);
+
+            int px = (int) (anchor.x - palmW / 2 + extraSide), py = (int) (anchor.y - palmH / 2 + extraDrop);
+            Paint old = g2.getPaint();
+            g2.setPaint(new GradientPaint(px, py, skin1, px, py + palmH, skin2));
+            fillRoundRectPoly(g2, px, py, (int) palmW, (int) palmH, 22, 10);
+            g2.setPaint(old);
+
+            for (int i = fs.length - 1; i >= 0; i--)
+                fs[i].drawVector(g2, ax, ay, isLeft);
+
+            drawSleeve(g2);
+        }
 
-            // แขนเสื้อ (สี่เหลี่ยมธรรมดา)
-            gg.setColor(new Color(35, 95, 165));
+        // แขนเสื้อ (สี่เหลี่ยมธรรมดา)
+        private void drawSleeve(Graphics2D g2) {
+            g2.setColor(SLEEVE_COLOR);
             int bw = 80, bh = 90;
             int bx = (int) (anchor.x + extraSide - bw / 2);
             int by = (int) (anchor.y + extraDrop + palmH / 2 - 6);
-            fillRectPoly(gg, bx, by, bw, bh);
-
-            gg.dispose();
+            fillRectPoly(g2, bx, by, bw, bh);
         }
     }
 
@@ -602,6 +843,8 @@ public class FPS_Coding extends JPanel implements Runnable {
 
         float press = 0f;
         float tx = Float.NaN, ty = Float.NaN;
+        // กดแล้วคืนแบบหน่วงวิกฤต: ω = 14 → กลับเกือบสุดใน ~0.3 s เท่าการลดเชิงเส้นเดิม (3.5 ต่อวินาที)
+        static final double PRESS_OMEGA = 14;
         float offsetX = 0f, offsetY = 0f;
 
         private Finger(float bx, float by, float l, float th, boolean t) {
@@ -632,25 +875,42 @@ public class FPS_Coding extends JPanel implements Runnable {
             return new Finger(x, y, 40, 11, false);
         }
 
-        void pressAt(float x, float y) {
+        /** กดที่ (x, y) เมื่อ age วินาทีก่อน: สปริงหน่วงวิกฤตเริ่มที่ 1 แบบปิด (1 + ωa)·e^(−ωa) */
+        void pressAt(float x, float y, double age) {
             tx = x;
             ty = y;
-            press = 1f;
+            double wa = PRESS_OMEGA * age;
+            press = (float) ((1 + wa) * exp(-wa));
         }
 
-        void pressAt(double x, double y) {
-            pressAt((float) x, (float) y);
-        }
+        void draw(Graphics2D g2, float ax, float ay, boolean isLeft) {
+            float jx = ax + baseX + offsetX;
+            float jy = ay + baseY + offsetY;
 
-        void update(double dt) {
-            press = max(0f, (float) (press - dt * 3.5));
-        }
+            float dx = 0, dy = 0;
+            if (!Float.isNaN(tx)) {
+                dx = (tx - jx) * press * 0.28f;
+                dy = (ty - jy) * press * 0.28f + 6f * press;
+            }
 
-        void draw(Graphics2D g2, Point2D.Float anchor, boolean isLeft) {
-            Graphics2D gg = (Graphics2D) g2.create();
+            float curl = thumb ? 8f : 12f;
+            float tipX = jx + dx;
+            float tipY = jy - (len - curl) + dy;
 
-            float jx = anchor.x + baseX + offsetX;
-            float jy = anchor.y + baseY + offsetY;
+            // นิ้ว = แคปซูล (สองครึ่งวงกลม + สันตรง) → sprite ตาม (ความยาว, ความหนา, มุม)
+            int bx = Math.round(jx), by = Math.round(jy);
+            CapsuleSprite cap = CapsuleSprite.get(tipX - jx, tipY - jy, thick / 1.8f);
+            cap.draw(g2, bx, by);
+
+            // เล็บ + ไฮไลต์ (ปลายนิ้วใช้ค่าที่ปัดแล้วให้ตรงกับแคปซูล)
+            float nx = bx + cap.tipX - (isLeft ? 6 : 8), ny = by + cap.tipY - 4;
+            Sprite.nail().draw(g2, Math.round(nx), Math.round(ny));
+        }
+
+        /** เหมือน draw() แต่เป็นโพลิกอนตรง (ไม่ปัดมุม/ความยาวให้ตรงกับ sprite) */
+        void drawVector(Graphics2D g2, float ax, float ay, boolean isLeft) {
+            float jx = ax + baseX + offsetX;
+            float jy = ay + baseY + offsetY;
 
             float dx = 0, dy = 0;
             if (!Float.isNaN(tx)) {
@@ -662,20 +922,139 @@ public class FPS_Coding extends JPanel implements Runnable {
             float tipX = jx + dx;
             float tipY = jy - (len - curl) + dy;
 
-            // นิ้ว = แคปซูล (สองครึ่งวงกลม + สันตรง) → โพลิกอน
-            gg.setColor(new Color(255, 220, 190));
-            fillCapsulePoly(gg, jx, jy, tipX, tipY, thick / 1.8f, 16);
+            g2.setColor(SKIN_COLOR);
+            fillCapsulePoly(g2, jx, jy, tipX, tipY, thick / 1.8f, 16);
 
-            // เล็บ (มุมมนเล็ก ๆ)
             float nx = tipX - (isLeft ? 6 : 8), ny = tipY - 4;
-            gg.setColor(new Color(255, 245, 235, 220));
-            fillRoundRectPoly(gg, Math.round(nx), Math.round(ny), 14, 8, 4, 6);
+            g2.setColor(NAIL_COLOR);
+            fillRoundRectPoly(g2, Math.round(nx), Math.round(ny), 14, 8, 4, 6);
+            g2.setColor(NAIL_HIGHLIGHT);
+            fillRoundRectPoly(g2, Math.round(nx + 2), Math.round(ny + 1), 10, 3, 3, 5);
+        }
+    }
+
+    /* ========================= Sprites (มือ/นิ้ว) ========================= */
 
-            // ไฮไลต์เล็บ
-            gg.setColor(new Color(255, 255, 255, 120));
-            fillRoundRectPoly(gg, Math.round(nx + 2), Math.round(ny + 1), 10, 3, 3, 5);
+    /** ภาพที่วาดไว้ล่วงหน้า; (ox, oy) คือจุดอ้างอิงในภาพที่จะวางตรงตำแหน่งที่สั่งวาด */
+    static class Sprite {
+        final BufferedImage img;
+        final int ox, oy;
+
+        Sprite(BufferedImage img, int ox, int oy) {
+            this.img = img;
+            this.ox = ox;
+            this.oy = oy;
+        }
+
+        void draw(Graphics2D g2, int x, int y) {
+            g2.drawImage(img, x - ox, y - oy, null);
+        }
+
+        /** sprite ที่ 1x วาดได้ตรงพิกเซลเมื่อ transform เป็นการเลื่อนด้วยจำนวนเต็มเท่านั้น (ไม่ซูม ไม่หมุน) */
+        static boolean pixelAligned(Graphics2D g2) {
+            AffineTransform t = g2.getTransform();
+            return (t.getType() & ~AffineTransform.TYPE_TRANSLATION) == 0
+                    && t.getTranslateX() == rint(t.getTranslateX()) && t.getTranslateY() == rint(t.getTranslateY());
+        }
+
+        static Graphics2D begin(BufferedImage img) {
+            Graphics2D sg = img.createGraphics();
+            sg.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+            return sg;
+        }
 
-            gg.dispose();
+        /** วงรีทึบ, จุดอ้างอิง = จุดศูนย์กลาง */
+        static Sprite ellipse(int rx, int ry, int seg, Color c) {
+            BufferedImage img = new BufferedImage(2 * rx + 3, 2 * ry + 3, BufferedImage.TYPE_INT_ARGB_PRE);
+            Graphics2D sg = begin(img);
+            sg.setColor(c);
+            fillEllipsePoly(sg, rx + 1, ry + 1, rx, ry, seg);
+            sg.dispose();
+            return new Sprite(img, rx + 1, ry + 1);
+        }
+
+        /** สี่เหลี่ยมมุมมนไล่สีบน→ล่าง, จุดอ้างอิง = มุมซ้ายบน */
+        static Sprite gradientRoundRect(int w, int h, int r, int seg, Color top, Color bottom) {
+            BufferedImage img = new BufferedImage(w + 1, h + 1, BufferedImage.TYPE_INT_ARGB_PRE);
+            Graphics2D sg = begin(img);
+            sg.setPaint(new GradientPaint(0, 0, top, 0, h, bottom));
+            fillRoundRectPoly(sg, 0, 0, w, h, r, seg);
+            sg.dispose();
+            return new Sprite(img, 0, 0);
+        }
+
+        private static Sprite nail;
+
+        /** เล็บ + ไฮไลต์เล็บ, จุดอ้างอิง = มุมซ้ายบนของเล็บ */
+        static synchronized Sprite nail() {
+            if (nail == null) {
+                BufferedImage img = new BufferedImage(15, 9, BufferedImage.TYPE_INT_ARGB_PRE);
+                Graphics2D sg = begin(img);
+                sg.setColor(NAIL_COLOR);
+                fillRoundRectPoly(sg, 0, 0, 14, 8, 4, 6);
+                sg.setColor(NAIL_HIGHLIGHT);
+                fillRoundRectPoly(sg, 2, 1, 10, 3, 3, 5);
+                sg.dispose();
+                nail = new Sprite(img, 0, 0);
+            }
+            return nail;
+        }
+    }
+
+    /**
+     * แคปซูลนิ้วที่ cache ตาม (ความยาวปัดเป็น px, ความหนา, มุมปัดเป็น 1/ANGLES รอบ).
+     * จุดอ้างอิง = โคนนิ้ว, (tipX, tipY) = ปลายนิ้วหลังปัดแล้ว
+     */
+    static final class CapsuleSprite extends Sprite {
+        static final int ANGLES = 256;
+        private static final java.util.Map<Long, CapsuleSprite> CACHE = new java.util.HashMap<>();
+
+        final float tipX, tipY;
+
+        private CapsuleSprite(BufferedImage img, int ox, int oy, float tipX, float tipY) {
+            super(img, ox, oy);
+            this.tipX = tipX;
+            this.tipY = tipY;
+        }
+
+        static synchronized CapsuleSprite get(float dx, float dy, float r) {
+            int len = lengthOf(dx, dy), ang = angleOf(dx, dy);
+            long key = ((long) len << 40) | ((long) Float.floatToIntBits(r) << 8) | ang;
+            CapsuleSprite s = CACHE.get(key);
+            if (s == null) {
+                s = build(len, ang, r);
+                CACHE.put(key, s);
+            }
+            return s;
+        }
+
+        /** เหมือน get() แต่สร้างใหม่และไม่เก็บลง CACHE (ผู้เรียกเก็บเอง เช่น TypingCrowd) */
+        static CapsuleSprite build(float dx, float dy, float r) {
+            return build(lengthOf(dx, dy), angleOf(dx, dy), r);
+        }
+
+        private static int lengthOf(float dx, float dy) {
+            return Math.round((float) Math.hypot(dx, dy));
+        }
+
+        private static int angleOf(float dx, float dy) {
+            return (int) Math.round(Math.atan2(dy, dx) / (2 * Math.PI) * ANGLES) & (ANGLES - 1);
+        }
+
+        private static CapsuleSprite build(int len, int ang, float r) {
+            double a = 2 * Math.PI * ang / ANGLES;
+            float tx = (float) (len * Math.cos(a)), ty = (float) (len * Math.sin(a));
+            int pad = (int) Math.ceil(r) + 2;
+            int minX = (int) Math.floor(Math.min(0, tx)) - pad, maxX = (int) Math.ceil(Math.max(0, tx)) + pad;
+            int minY = (int) Math.floor(Math.min(0, ty)) - pad, maxY = (int) Math.ceil(Math.max(0, ty)) + pad;
+            int ox = -minX, oy = -minY;
+
+            BufferedImage img = new BufferedImage(maxX - minX + 1, maxY - minY + 1, BufferedImage.TYPE_INT_ARGB_PRE);
+            Graphics2D sg = begin(img);
+            sg.setColor(SKIN_COLOR);
+            fillCapsulePoly(sg, ox, oy, ox + tx, oy + ty, r, 16);
+            sg.dispose();
+            return new CapsuleSprite(img, ox, oy, tx, ty);
         }
     }
 
@@ -699,6 +1078,23 @@ public class FPS_Coding extends JPanel implements Runnable {
      * ====================================================================
      */
 
+    /*
+     * ความละเอียด k = OfflineScene.detailOf(g2) (สเกลของเป้าหมาย ไม่รวมซูมกล้อง): เมื่อ k > 1 helper จะสร้างโพลิกอน
+     * ที่พิกัด ×k (จำนวนจุด ×k) แล้ววาดใต้ scale 1/k → จุดยอดละเอียดระดับพิกเซลจริง
+     */
+
+    /** เติมโพลิกอนที่พิกัดถูกคูณ k ไว้แล้ว */
+    private static void fillScaled(Graphics2D g2, Polygon p, int k) {
+        if (k == 1) {
+            g2.fillPolygon(p);
+            return;
+        }
+        AffineTransform at = g2.getTransform();
+        g2.scale(1.0 / k, 1.0 / k);
+        g2.fillPolygon(p);
+        g2.setTransform(at);
+    }
+
     /** เติมสี่เหลี่ยมด้วยโพลิกอน */
     private static void fillRectPoly(Graphics2D g2, int x, int y, int w, int h) {
         int[] xs = { x, x + w, x + w, x };
@@ -707,8 +1103,13 @@ public class FPS_Coding extends JPanel implements Runnable {
     }
 
     /** เติมวงรีด้วยโพลิกอน (พอยต์แบบพาราเมตริก: Midpoint-ellipse sampling style) */
-    private static void fillEllipsePoly(Graphics2D g2, int cx, int cy, int rx, int ry, int seg) {
-        seg = max(8, seg);
+    static void fillEllipsePoly(Graphics2D g2, int cx, int cy, int rx, int ry, int seg) {
+        int k = OfflineScene.detailOf(g2);
+        cx *= k;
+        cy *= k;
+        rx *= k;
+        ry *= k;
+        seg = max(8, seg) * k;
         int[] xs = new int[seg];
         int[] ys = new int[seg];
         for (int i = 0; i < seg; i++) {
@@ -716,11 +1117,11 @@ public class FPS_Coding extends JPanel implements Runnable {
             xs[i] = (int) Math.round(cx + rx * Math.cos(ang));
             ys[i] = (int) Math.round(cy + ry * Math.sin(ang));
         }
-        g2.fillPolygon(xs, ys, seg);
+        fillScaled(g2, new Polygon(xs, ys, seg), k);
     }
 
     /** โพลิกอนสี่เหลี่ยมมุมมน (มุมละ segPerQuarter จุด) */
-    private static Polygon roundRectPolygon(int x, int y, int w, int h, int r, int segPerQuarter) {
+    static Polygon roundRectPolygon(int x, int y, int w, int h, int r, int segPerQuarter) {
         int rr = Math.max(0, Math.min(r, Math.min(w, h) / 2));
         int seg = Math.max(3, segPerQuarter);
         List<Point> pts = new ArrayList<>(seg * 4 + 4);
@@ -764,14 +1165,15 @@ public class FPS_Coding extends JPanel implements Runnable {
 
     /** เติมสี่เหลี่ยมมุมมนด้วยโพลิกอน */
     private static void fillRoundRectPoly(Graphics2D g2, int x, int y, int w, int h, int r, int segPerQuarter) {
-        g2.fillPolygon(roundRectPolygon(x, y, w, h, r, segPerQuarter));
+        int k = OfflineScene.detailOf(g2);
+        fillScaled(g2, roundRectPolygon(x * k, y * k, w * k, h * k, r * k, segPerQuarter * k), k);
     }
 
     /**
      * เติม “แคปซูล” (ปลายครึ่งวงกลม 2 ด้าน + สันตรงกลาง) ด้วยโพลิกอน
      * ใช้พอยต์กึ่งพาราเมตริก (Midpoint-circle sampling) ต่อเนื่อง
      */
-    private static void fillCapsulePoly(Graphics2D g2, float x1, float y1, float x2, float y2, float r, int seg) {
+    static void fillCapsulePoly(Graphics2D g2, float x1, float y1, float x2, float y2, float r, int seg) {
         double dx = x2 - x1, dy = y2 - y1;
         double L = Math.hypot(dx, dy);
         if (L < 1e-3) {
@@ -780,6 +1182,14 @@ public class FPS_Coding extends JPanel implements Runnable {
             return;
         }
 
+        int k = OfflineScene.detailOf(g2);
+        x1 *= k;
+        y1 *= k;
+        x2 *= k;
+        y2 *= k;
+        r *= k;
+        seg *= k; // ทิศ (dx, dy) ไม่เปลี่ยนตามสเกล
+
         double ux = dx / L, uy = dy / L;
         double px = -uy, py = ux; // ตั้งฉาก
 
@@ -824,6 +1234,6 @@ public class FPS_Coding extends JPanel implements Runnable {
         Polygon p = new Polygon();
         for (Point pt : pts)
             p.addPoint(pt.x, pt.y);
-        g2.fillPolygon(p);
+        fillScaled(g2, p, k);
     }
 }
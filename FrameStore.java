@@ -0,0 +1,352 @@
+import java.awt.Dimension;
+import java.awt.Graphics;
+import java.awt.Graphics2D;
+import java.awt.event.KeyAdapter;
+import java.awt.event.KeyEvent;
+import java.awt.image.BufferedImage;
+import java.awt.image.ColorModel;
+import java.awt.image.DataBuffer;
+import java.awt.image.DataBufferInt;
+import java.awt.image.Raster;
+import java.awt.image.WritableRaster;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+import javax.swing.JFrame;
+import javax.swing.JPanel;
+import javax.swing.SwingUtilities;
+import javax.swing.Timer;
+
+/**
+ * Frames stored uncompressed in one memory-mapped file, for long offline renders
+ * and random-access playback.
+ *
+ * Layout (little endian):
+ *   header  magic "FRMSTORE", version, width, height, fps, capacity (32 bytes)
+ *   index   one long per slot: simulation time of the frame in microseconds, -1 if empty
+ *   slots   page-aligned, capacity x (width * height) ARGB ints
+ *
+ * The slots are mapped once, in segments of up to 1 GiB. A scene renders into one
+ * reused heap TYPE_INT_ARGB image, so Java2D keeps its fast loops, and write(i, img)
+ * copies its pixels into the mapped slot in one bulk put: no encoding, no per-frame
+ * mapping. The player reads frames through slot(i), a view over the mapped slot.
+ *
+ * Usage: java FrameStore record scene file.frames [seconds=10] [fps=60] [seed=23] [size=600x600]
+ *        java FrameStore play file.frames [startFrame=0]
+ */
+public final class FrameStore implements Closeable {
+
+    private static final byte[] MAGIC = "FRMSTORE".getBytes(StandardCharsets.US_ASCII);
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 32;
+    private static final int PAGE = 4096;
+    private static final long EMPTY = -1;
+    private static final long SEGMENT_BYTES = 1L << 30;
+
+    private final FileChannel ch;
+    private final boolean writable;
+    private final int width, height, fps, capacity;
+    private final MappedByteBuffer index; // header + index, mapped once
+    private final long dataStart, slotBytes;
+    private final int slotsPerSegment;
+    private final IntBuffer[] segments; // mapped on first use, then kept
+
+    private FrameStore(FileChannel ch, boolean writable, int width, int height, int fps, int capacity)
+            throws IOException {
+        this.ch = ch;
+        this.writable = writable;
+        this.width = width;
+        this.height = height;
+        this.fps = fps;
+        this.capacity = capacity;
+        long indexEnd = HEADER_BYTES + 8L * capacity;
+        this.dataStart = (indexEnd + PAGE - 1) / PAGE * PAGE;
+        this.slotBytes = 4L * width * height;
+        this.slotsPerSegment = (int) Math.max(1, Math.min(capacity, SEGMENT_BYTES / slotBytes));
+        this.segments = new IntBuffer[(capacity + slotsPerSegment - 1) / slotsPerSegment];
+        this.index = ch.map(writable ? FileChannel.MapMode.READ_WRITE : FileChannel.MapMode.READ_ONLY, 0, indexEnd);
+        this.index.order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    /** Create (or truncate) a store with room for `capacity` frames of width x height. */
+    public static FrameStore create(Path file, int width, int height, int fps, int capacity) throws IOException {
+        if (width <= 0 || height <= 0 || capacity <= 0)
+            throw new IllegalArgumentException("Empty store: " + width + "x" + height + " x " + capacity);
+        if (4L * width * height > Integer.MAX_VALUE)
+            throw new IllegalArgumentException("Frame too large to map: " + width + "x" + height);
+        FileChannel ch = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        try {
+            FrameStore store = new FrameStore(ch, true, width, height, fps, capacity);
+            ch.write(ByteBuffer.wrap(new byte[] { 0 }), store.dataStart + capacity * store.slotBytes - 1); // full size, sparse
+            MappedByteBuffer h = store.index;
+            h.put(0, MAGIC);
+            h.putInt(8, VERSION);
+            h.putInt(12, width);
+            h.putInt(16, height);
+            h.putInt(20, fps);
+            h.putInt(24, capacity);
+            for (int i = 0; i < capacity; i++)
+                h.putLong(HEADER_BYTES + 8 * i, EMPTY);
+            return store;
+        } catch (IOException | RuntimeException e) {
+            ch.close();
+            throw e;
+        }
+    }
+
+    /** Open an existing store read-only (for playback). */
+    public static FrameStore open(Path file) throws IOException {
+        FileChannel ch = FileChannel.open(file, StandardOpenOption.READ);
+        try {
+            ByteBuffer h = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            while (h.hasRemaining() && ch.read(h, h.position()) > 0) {
+            }
+            byte[] magic = new byte[MAGIC.length];
+            h.get(0, magic);
+            if (h.hasRemaining() || !Arrays.equals(magic, MAGIC) || h.getInt(8) != VERSION)
+                throw new IOException("Not a frame store: " + file);
+            return new FrameStore(ch, false, h.getInt(12), h.getInt(16), h.getInt(20), h.getInt(24));
+        } catch (IOException | RuntimeException e) {
+            ch.close();
+            throw e;
+        }
+    }
+
+    public int width() {
+        return width;
+    }
+
+    public int height() {
+        return height;
+    }
+
+    public int fps() {
+        return fps;
+    }
+
+    public int capacity() {
+        return capacity;
+    }
+
+    /** True once frame i has been committed. */
+    public boolean has(int i) {
+        return timeMicros(i) != EMPTY;
+    }
+
+    /** Simulation time of frame i in microseconds, or -1 if it was never committed. */
+    public long timeMicros(int i) {
+        checkIndex(i);
+        return index.getLong(HEADER_BYTES + 8 * i);
+    }
+
+    /** Number of leading committed frames (the playable length). */
+    public int length() {
+        int n = 0;
+        while (n < capacity && has(n))
+            n++;
+        return n;
+    }
+
+    /**
+     * Image backed directly by slot i of the file, for reading it back (the
+     * player). It is a custom raster, slow to draw into: record frames with
+     * write(i, img) instead. Read-only stores return a read-only view.
+     */
+    public BufferedImage slot(int i) throws IOException {
+        IntBuffer ints = ints(i);
+        ColorModel cm = ColorModel.getRGBdefault();
+        WritableRaster raster = Raster.createWritableRaster(cm.createCompatibleSampleModel(width, height),
+                new MappedIntDataBuffer(ints), null);
+        return new BufferedImage(cm, raster, false, null);
+    }
+
+    /** Copy a width x height TYPE_INT_ARGB image into slot i (one bulk put into the mapped pages). */
+    public void write(int i, BufferedImage img) throws IOException {
+        if (!writable)
+            throw new IllegalStateException("Store is read-only");
+        if (img.getType() != BufferedImage.TYPE_INT_ARGB || img.getWidth() != width || img.getHeight() != height)
+            throw new IllegalArgumentException("Expected a " + width + "x" + height + " TYPE_INT_ARGB image, got "
+                    + img.getWidth() + "x" + img.getHeight() + " type " + img.getType());
+        ints(i).put(((DataBufferInt) img.getRaster().getDataBuffer()).getData());
+    }
+
+    //Slot i as a fresh IntBuffer over its segment's mapping (the segment is mapped once, on first use)
+    private IntBuffer ints(int i) throws IOException {
+        checkIndex(i);
+        int s = i / slotsPerSegment;
+        if (segments[s] == null) {
+            long first = (long) s * slotsPerSegment;
+            long bytes = Math.min(slotsPerSegment, capacity - first) * slotBytes;
+            MappedByteBuffer mapped = ch.map(writable ? FileChannel.MapMode.READ_WRITE : FileChannel.MapMode.READ_ONLY,
+                    dataStart + first * slotBytes, bytes);
+            segments[s] = mapped.order(ByteOrder.LITTLE_ENDIAN).asIntBuffer();
+        }
+        int ints = width * height;
+        return segments[s].slice(i % slotsPerSegment * ints, ints);
+    }
+
+    /** Mark frame i as written at the given simulation time. */
+    public void commit(int i, double timeSec) {
+        checkIndex(i);
+        index.putLong(HEADER_BYTES + 8 * i, Math.round(timeSec * 1e6));
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (writable)
+            index.force();
+        ch.close();
+    }
+
+    private void checkIndex(int i) {
+        if (i < 0 || i >= capacity)
+            throw new IndexOutOfBoundsException("Frame " + i + " of " + capacity);
+    }
+
+    /** TYPE_INT bank over a mapped IntBuffer, so Java2D reads and writes the file directly. */
+    private static final class MappedIntDataBuffer extends DataBuffer {
+        private final IntBuffer ints;
+
+        MappedIntDataBuffer(IntBuffer ints) {
+            super(TYPE_INT, ints.capacity());
+            this.ints = ints;
+        }
+
+        @Override
+        public int getElem(int bank, int i) {
+            return ints.get(i);
+        }
+
+        @Override
+        public void setElem(int bank, int i, int val) {
+            ints.put(i, val);
+        }
+    }
+
+    /**
+     * Render `frames` frames of a scene into slots 0.. of the store, ticking the clock between them.
+     * Every frame is drawn into the same heap image, cleared first, then written to its slot.
+     */
+    public void record(OfflineScene scene, SimulationClock clock, int frames) throws IOException {
+        BufferedImage img = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+        int[] px = ((DataBufferInt) img.getRaster().getDataBuffer()).getData();
+        for (int i = 0; i < frames; i++) {
+            Arrays.fill(px, 0);
+            Graphics2D g = img.createGraphics();
+            scene.renderFrame(g, width, height);
+            g.dispose();
+            write(i, img);
+            commit(i, clock.time());
+            scene.step(clock.tick());
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (args.length >= 3 && args[0].equals("record")) {
+            System.setProperty("java.awt.headless", "true");
+            double seconds = (args.length > 3) ? Double.parseDouble(args[3]) : 10.0;
+            int fps = (args.length > 4) ? Integer.parseInt(args[4]) : 60;
+            long seed = (args.length > 5) ? Long.parseLong(args[5]) : FPS_Coding.DEFAULT_SEED;
+
+            SimulationClock clock = SimulationClock.fixedStep(1.0 / fps);
+            OfflineScene scene = OfflineScene.create(args[1], clock, seed);
+            int[] size = (args.length > 6) ? OfflineRenderer.parseSize(args[6])
+                    : new int[] { scene.frameWidth(), scene.frameHeight() };
+            int frames = (int) Math.round(seconds * fps);
+            long start = System.nanoTime();
+            try (FrameStore store = create(Paths.get(args[2]), size[0], size[1], fps, frames)) {
+                store.record(scene, clock, frames);
+            }
+            double took = (System.nanoTime() - start) / 1e9;
+            System.out.printf("%s: %d frames in %.2f s (%.1f frames/s)%n", args[2], frames, took, frames / took);
+        } else if (args.length >= 2 && args[0].equals("play")) {
+            FrameStore store = open(Paths.get(args[1]));
+            int first = (args.length > 2) ? Integer.parseInt(args[2]) : 0;
+            SwingUtilities.invokeLater(() -> Player.show(store, first));
+        } else {
+            System.err.println("Usage: java FrameStore record <fps|ball|pit|crowd|drawkomodo|komodo> <file> [seconds=10] [fps=60] [seed=23] [WxH]");
+            System.err.println("       java FrameStore play <file> [startFrame=0]");
+            System.exit(2);
+        }
+    }
+
+    /**
+     * Plays a store at its fps. Space pauses, left/right step one frame,
+     * Home/End jump to the ends. Only the segments of frames it has shown are mapped.
+     */
+    private static final class Player extends JPanel {
+        private final FrameStore store;
+        private final int length;
+        private int current;
+        private BufferedImage frame;
+
+        private Player(FrameStore store, int first) {
+            this.store = store;
+            this.length = Math.max(1, store.length());
+            this.setPreferredSize(new Dimension(store.width(), store.height()));
+            this.setFocusable(true);
+            seek(first);
+        }
+
+        static void show(FrameStore store, int first) {
+            Player p = new Player(store, first);
+            JFrame f = new JFrame("FrameStore (" + p.length + " frames)");
+            f.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
+            f.setContentPane(p);
+            f.pack();
+            f.setLocationRelativeTo(null);
+            f.setVisible(true);
+
+            Timer timer = new Timer(Math.max(1, 1000 / Math.max(1, store.fps())), e -> p.seek(p.current + 1));
+            p.addKeyListener(new KeyAdapter() {
+                @Override
+                public void keyPressed(KeyEvent e) {
+                    switch (e.getKeyCode()) {
+                        case KeyEvent.VK_SPACE -> {
+                            if (timer.isRunning())
+                                timer.stop();
+                            else
+                                timer.start();
+                        }
+                        case KeyEvent.VK_RIGHT -> p.seek(p.current + 1);
+                        case KeyEvent.VK_LEFT -> p.seek(p.current - 1);
+                        case KeyEvent.VK_HOME -> p.seek(0);
+                        case KeyEvent.VK_END -> p.seek(p.length - 1);
+                        default -> {
+                        }
+                    }
+                }
+            });
+            p.requestFocusInWindow();
+            timer.start();
+        }
+
+        private void seek(int i) {
+            current = Math.floorMod(i, length);
+            try {
+                frame = store.has(current) ? store.slot(current) : null;
+            } catch (IOException e) {
+                throw new IllegalStateException("Cannot map frame " + current, e);
+            }
+            repaint();
+        }
+
+        @Override
+        protected void paintComponent(Graphics g) {
+            super.paintComponent(g);
+            if (frame != null)
+                g.drawImage(frame, 0, 0, null);
+        }
+    }
+}
@@ -0,0 +1,254 @@
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+import javax.imageio.ImageIO;
+
+/**
+ * Golden-image regression harness for the rasterizer paths.
+ *
+ * "record" renders reference frames of every scene at fixed simulation times
+ * with the current code and stores them as PNGs. "verify" renders the same
+ * frames again (with whatever engines the tree now uses) and diffs them against
+ * the references: differing pixels, per-channel max/mean error, the worst
+ * REGION x REGION blocks, and a diff image for every frame that changed.
+ * "komodo" diffs KomodoDrawing's TILED raster backend against SEQUENTIAL, its
+ * reference path, directly.
+ *
+ * A frame passes when no channel differs by more than `tolerance` and at most
+ * `maxPixels` pixels differ at all. The exit code is 1 when any frame fails.
+ *
+ * Usage: java GoldenImage record dir [WxH]
+ *        java GoldenImage verify dir [tolerance=0] [maxPixels=0] [WxH]
+ *        java GoldenImage komodo [WxH ...]
+ */
+public class GoldenImage {
+
+    /** Scenes and simulation times (s) of the reference frames: the scene's phases and transitions. */
+    private static final String[] SCENES = { "fps", "ball", "pit", "crowd", "drawkomodo", "komodo" };
+    private static final double[][] TIMES = {
+            { 0.0, 1.0, 3.5, 5.2, 6.1, 7.0, 8.0, 9.5 },
+            { 0.0, 0.25, 0.5, 1.0, 2.0, 4.0, 6.0 },
+            { 0.0, 0.5, 1.0, 2.0, 4.0, 8.0 },
+            { 0.0, 0.5, 2.0, 5.0 },
+            { 0.0, 1.0, 2.2, 2.5, 3.0, 4.0 },
+            { 0.0 },
+    };
+    private static final int FPS = 60;
+    private static final int REGION = 32;
+    private static final int WORST_REGIONS = 3;
+
+    /** Statistics of one reference/candidate pair. */
+    public static final class Diff {
+        int width, height;
+        long differing; // pixels with any channel different
+        long overTolerance; // pixels with a channel difference above the tolerance
+        final int[] maxDelta = new int[4]; // per channel: A, R, G, B
+        final long[] sumDelta = new long[4];
+        int[] regionCounts; // differing pixels per REGION x REGION block
+        int regionsX;
+
+        public boolean identical() {
+            return differing == 0;
+        }
+
+        boolean passes(int maxPixels) {
+            return overTolerance == 0 && differing <= maxPixels;
+        }
+
+        @Override
+        public String toString() {
+            if (identical())
+                return "identical";
+            long n = (long) width * height;
+            StringBuilder sb = new StringBuilder(String.format(Locale.ROOT, "%d px differ (%.3f%%), %d over tolerance",
+                    differing, 100.0 * differing / n, overTolerance));
+            String[] ch = { "A", "R", "G", "B" };
+            for (int c = 0; c < 4; c++)
+                sb.append(String.format(Locale.ROOT, "; %s max %d mean %.4f", ch[c], maxDelta[c], sumDelta[c] / (double) n));
+            sb.append("; worst regions");
+            for (int r : worstRegions())
+                sb.append(String.format(" (%d,%d)=%d", r % regionsX * REGION, r / regionsX * REGION, regionCounts[r]));
+            return sb.toString();
+        }
+
+        private int[] worstRegions() {
+            List<Integer> order = new ArrayList<>();
+            for (int i = 0; i < regionCounts.length; i++)
+                if (regionCounts[i] > 0)
+                    order.add(i);
+            order.sort((a, b) -> Integer.compare(regionCounts[b], regionCounts[a]));
+            return order.stream().limit(WORST_REGIONS).mapToInt(Integer::intValue).toArray();
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        System.setProperty("java.awt.headless", "true");
+        if (args.length >= 2 && args[0].equals("record")) {
+            int[] size = (args.length > 2) ? OfflineRenderer.parseSize(args[2]) : null;
+            record(new File(args[1]), size);
+        } else if (args.length >= 2 && args[0].equals("verify")) {
+            int tolerance = (args.length > 2) ? Integer.parseInt(args[2]) : 0;
+            int maxPixels = (args.length > 3) ? Integer.parseInt(args[3]) : 0;
+            int[] size = (args.length > 4) ? OfflineRenderer.parseSize(args[4]) : null;
+            System.exit(verify(new File(args[1]), tolerance, maxPixels, size) ? 0 : 1);
+        } else if (args.length >= 1 && args[0].equals("komodo")) {
+            boolean ok = true;
+            String[] sizes = (args.length > 1) ? java.util.Arrays.copyOfRange(args, 1, args.length)
+                    : new String[] { "600x600", "1920x1080", "3840x2160" };
+            for (String s : sizes)
+                ok &= compareKomodoPaths(OfflineRenderer.parseSize(s));
+            System.exit(ok ? 0 : 1);
+        } else {
+            System.err.println("Usage: java GoldenImage record <dir> [WxH]");
+            System.err.println("       java GoldenImage verify <dir> [tolerance=0] [maxPixels=0] [WxH]");
+            System.err.println("       java GoldenImage komodo [WxH ...]");
+            System.exit(2);
+        }
+    }
+
+    /** Write every reference frame into dir. */
+    public static void record(File dir, int[] size) throws IOException {
+        if (!dir.isDirectory() && !dir.mkdirs())
+            throw new IOException("Cannot create " + dir);
+        for (int s = 0; s < SCENES.length; s++) {
+            List<BufferedImage> frames = renderAt(SCENES[s], TIMES[s], size);
+            for (int i = 0; i < frames.size(); i++)
+                ImageIO.write(frames.get(i), "png", goldenFile(dir, SCENES[s], TIMES[s][i]));
+            System.out.println(SCENES[s] + ": " + frames.size() + " reference frames");
+        }
+    }
+
+    /** Render every reference frame again and diff it; true when all of them pass. */
+    public static boolean verify(File dir, int tolerance, int maxPixels, int[] size) throws IOException {
+        boolean ok = true;
+        for (int s = 0; s < SCENES.length; s++) {
+            List<BufferedImage> frames = renderAt(SCENES[s], TIMES[s], size);
+            for (int i = 0; i < frames.size(); i++) {
+                File ref = goldenFile(dir, SCENES[s], TIMES[s][i]);
+                String name = ref.getName();
+                if (!ref.isFile()) {
+                    System.out.println("MISSING " + name);
+                    ok = false;
+                    continue;
+                }
+                BufferedImage golden = ImageIO.read(ref);
+                BufferedImage current = frames.get(i);
+                if (golden.getWidth() != current.getWidth() || golden.getHeight() != current.getHeight()) {
+                    System.out.printf("FAIL %s: size %dx%d, expected %dx%d%n", name, current.getWidth(),
+                            current.getHeight(), golden.getWidth(), golden.getHeight());
+                    ok = false;
+                    continue;
+                }
+                Diff d = compare(golden, current, tolerance);
+                boolean pass = d.passes(maxPixels);
+                ok &= pass;
+                System.out.println((pass ? "ok   " : "FAIL ") + name + ": " + d);
+                if (!d.identical())
+                    ImageIO.write(diffImage(golden, current), "png",
+                            new File(dir, name.replace(".png", ".diff.png")));
+            }
+        }
+        return ok;
+    }
+
+    /** KomodoDrawing's TILED backend against SEQUENTIAL at one size; they must be identical. */
+    public static boolean compareKomodoPaths(int[] size) {
+        BufferedImage[] img = new BufferedImage[2];
+        KomodoDrawing.RasterMode[] modes = { KomodoDrawing.RasterMode.SEQUENTIAL, KomodoDrawing.RasterMode.TILED };
+        for (int m = 0; m < 2; m++) {
+            KomodoDrawing k = new KomodoDrawing();
+            k.setRasterMode(modes[m]);
+            img[m] = render(k, size[0], size[1]);
+        }
+        Diff d = compare(img[0], img[1], 0);
+        System.out.printf("%s komodo %dx%d TILED vs SEQUENTIAL: %s%n", d.identical() ? "ok  " : "FAIL", size[0], size[1], d);
+        return d.identical();
+    }
+
+    /** Frames of one scene at the given simulation times, stepping a fixed 1/FPS clock. */
+    static List<BufferedImage> renderAt(String sceneName, double[] times, int[] size) {
+        SimulationClock clock = SimulationClock.fixedStep(1.0 / FPS);
+        OfflineScene scene = OfflineScene.create(sceneName, clock, FPS_Coding.DEFAULT_SEED);
+        int w = (size != null) ? size[0] : scene.frameWidth();
+        int h = (size != null) ? size[1] : scene.frameHeight();
+        List<BufferedImage> frames = new ArrayList<>(times.length);
+        for (double t : times) {
+            OfflineRenderer.advanceTo(scene, clock, Math.round(t * FPS));
+            frames.add(render(scene, w, h));
+        }
+        return frames;
+    }
+
+    private static BufferedImage render(OfflineScene scene, int w, int h) {
+        BufferedImage img = new BufferedImage(w, h, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = img.createGraphics();
+        scene.renderFrame(g, w, h);
+        g.dispose();
+        return img;
+    }
+
+    private static File goldenFile(File dir, String scene, double t) {
+        return new File(dir, String.format(Locale.ROOT, "%s_t%05d.png", scene, Math.round(t * 1000)));
+    }
+
+    /** Per-pixel, per-channel and per-region differences of two same-size images. */
+    public static Diff compare(BufferedImage ref, BufferedImage cand, int tolerance) {
+        Diff d = new Diff();
+        d.width = ref.getWidth();
+        d.height = ref.getHeight();
+        d.regionsX = (d.width + REGION - 1) / REGION;
+        d.regionCounts = new int[d.regionsX * ((d.height + REGION - 1) / REGION)];
+        int[] a = ref.getRGB(0, 0, d.width, d.height, null, 0, d.width);
+        int[] b = cand.getRGB(0, 0, d.width, d.height, null, 0, d.width);
+        for (int i = 0; i < a.length; i++) {
+            if (a[i] == b[i])
+                continue;
+            int worst = 0;
+            for (int c = 0; c < 4; c++) {
+                int shift = 24 - 8 * c;
+                int delta = Math.abs(((a[i] >>> shift) & 0xFF) - ((b[i] >>> shift) & 0xFF));
+                d.maxDelta[c] = Math.max(d.maxDelta[c], delta);
+                d.sumDelta[c] += delta;
+                worst = Math.max(worst, delta);
+            }
+            d.differing++;
+            if (worst > tolerance)
+                d.overTolerance++;
+            int x = i % d.width, y = i / d.width;
+            d.regionCounts[y / REGION * d.regionsX + x / REGION]++;
+        }
+        return d;
+    }
+
+    /**
+     * The reference dimmed to a quarter, with every differing pixel in red at a
+     * brightness that grows with its largest channel difference.
+     */
+    public static BufferedImage diffImage(BufferedImage ref, BufferedImage cand) {
+        int w = ref.getWidth(), h = ref.getHeight();
+        int[] a = ref.getRGB(0, 0, w, h, null, 0, w);
+        int[] b = cand.getRGB(0, 0, w, h, null, 0, w);
+        int[] out = new int[a.length];
+        for (int i = 0; i < a.length; i++) {
+            if (a[i] == b[i]) {
+                int p = a[i];
+                int grey = (((p >> 16) & 0xFF) + ((p >> 8) & 0xFF) + (p & 0xFF)) / 12;
+                out[i] = 0xFF000000 | grey << 16 | grey << 8 | grey;
+            } else {
+                int worst = 0;
+                for (int shift = 0; shift <= 24; shift += 8)
+                    worst = Math.max(worst, Math.abs(((a[i] >>> shift) & 0xFF) - ((b[i] >>> shift) & 0xFF)));
+                int red = 128 + worst / 2;
+                out[i] = 0xFF000000 | red << 16;
+            }
+        }
+        BufferedImage img = new BufferedImage(w, h, BufferedImage.TYPE_INT_RGB);
+        img.setRGB(0, 0, w, h, out, 0, w);
+        return img;
+    }
+}
@@ -1,16 +1,42 @@
 import javax.swing.*;
 import java.awt.*;
 import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.LinkedList;
+import java.util.List;
 import java.util.Queue;
-
-public class KomodoDrawing extends JPanel {
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+public class KomodoDrawing extends JPanel implements OfflineScene {
     //Screen size
     private static final int W = 600, H = 600;
 
-    //Buffer
-    private final BufferedImage buf = new BufferedImage(W, H, BufferedImage.TYPE_INT_ARGB);         
-    private int penRGB = Color.BLACK.getRGB(); // sync pen color for buf
+    //Retained render: the drawing is static, so it is rasterized once per key and every paint is a blit.
+    //The key holds everything the pixels depend on: size, raster backend and palette.
+    private record RenderKey(int width, int height, RasterMode mode, int palette) {}
+
+    private volatile BufferedImage retained;
+    private volatile RenderKey retainedKey;
+    private RenderKey pendingKey; // key of the rebuild in flight (EDT only)
+    private int generation; // bumped by invalidateDrawing() so stale rebuilds are dropped (EDT only)
+    //One daemon thread shared by every panel; the drawing is cheap enough that rebuilds can queue
+    private static final ExecutorService RENDER_THREAD = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "KomodoDrawing-Render");
+        t.setDaemon(true);
+        return t;
+    });
+
+    //Raster backend: SEQUENTIAL plots every primitive straight into the image (the reference path),
+    //TILED records a display list and rasterizes 64x64 tiles in parallel. Both give the same pixels.
+    public enum RasterMode { SEQUENTIAL, TILED }
+
+    private volatile RasterMode rasterMode = RasterMode.TILED;
 
     //Colors
     private static final Color backgroundColor  = new Color(243, 233, 215);;
@@ -22,6 +48,10 @@ public class KomodoDrawing extends JPanel {
     private static final Color pupil     = new Color(16,  16,  16 );
     private static final Color tongue    = new Color(180, 71,  61 );
     private static final Color ground    = new Color(175, 165, 147);
+    //The colors are constants, so is their hash; it is in RenderKey so a settable palette cannot serve stale images
+    private static final int PALETTE = Arrays.hashCode(new int[] {
+            backgroundColor.getRGB(), outline.getRGB(), bodyColorFill.getRGB(), bodySpot.getRGB(),
+            belly.getRGB(), eyeColor.getRGB(), pupil.getRGB(), tongue.getRGB(), ground.getRGB() });
 
     public static void main(String[] args) {
         JFrame f = new JFrame();
@@ -36,19 +66,122 @@ public class KomodoDrawing extends JPanel {
 
     @Override
     protected void paintComponent(Graphics g) {
+        RenderKey key = currentKey();
+        BufferedImage img = retained;
+        if (img != null && key.equals(retainedKey)) {
+            g.drawImage(img, 0, 0, null);
+            return;
+        }
+
+        // Not rendered yet (or stale): show the background until the render thread is done
+        g.setColor(backgroundColor);
+        g.fillRect(0, 0, key.width(), key.height());
+        requestRender(key);
+    }
+
+    //Drop the retained image and render the drawing again (e.g. after switching the raster backend)
+    public void invalidateDrawing() {
+        retained = null;
+        retainedKey = null;
+        pendingKey = null;
+        generation++;
+        repaint();
+    }
+
+    public RasterMode getRasterMode() {
+        return rasterMode;
+    }
+
+    //Switch the raster backend; the retained drawing is rebuilt with it
+    public void setRasterMode(RasterMode mode) {
+        rasterMode = mode;
+        if (SwingUtilities.isEventDispatchThread()) invalidateDrawing();
+        else SwingUtilities.invokeLater(this::invalidateDrawing);
+    }
+
+    //Offline rendering (OfflineRenderer): same drawing, rendered synchronously on the caller's thread,
+    //re-rendered only when its key changes. Image and key are published together, and read once per frame,
+    //so a setRasterMode from another thread is picked up by the next frame and never seen half-done.
+    private record Offline(RenderKey key, BufferedImage image) {}
+
+    private volatile Offline offline;
+
+    @Override
+    public void step(double dt) {
+        //Static drawing, nothing to animate
+    }
+
+    @Override
+    public void renderFrame(Graphics2D g, int width, int height) {
+        double s = OfflineScene.fitScale(width, height, W, H);
+        int fw = (int) Math.round(W * s), fh = (int) Math.round(H * s);
+        RenderKey key = new RenderKey(fw, fh, rasterMode, PALETTE);
+        Offline o = offline;
+        if (o == null || !key.equals(o.key())) {
+            BufferedImage img = new BufferedImage(fw, fh, BufferedImage.TYPE_INT_ARGB);
+            renderDrawing(img, key.mode());
+            offline = o = new Offline(key, img);
+        }
+        int ox = (width - fw) / 2, oy = (height - fh) / 2;
+        if (ox > 0 || oy > 0) {
+            g.setColor(Color.BLACK);
+            g.fillRect(0, 0, width, height);
+        }
+        g.drawImage(o.image(), ox, oy, null);
+    }
+
+    @Override
+    public int frameWidth() {
+        return W;
+    }
+
+    @Override
+    public int frameHeight() {
+        return H;
+    }
+
+    private RenderKey currentKey() {
+        int w = (getWidth() > 0) ? getWidth() : W;
+        int h = (getHeight() > 0) ? getHeight() : H;
+        return new RenderKey(w, h, rasterMode, PALETTE);
+    }
+
+    //Schedule a rebuild on the render thread, at most one per key
+    private void requestRender(RenderKey key) {
+        if (key.equals(pendingKey)) return;
+        pendingKey = key;
+        int gen = generation;
+        RENDER_THREAD.execute(() -> {
+            BufferedImage img = new BufferedImage(key.width(), key.height(), BufferedImage.TYPE_INT_ARGB);
+            renderDrawing(img, key.mode());
+            SwingUtilities.invokeLater(() -> {
+                if (gen != generation || !key.equals(pendingKey)) return; // invalidated or resized meanwhile
+                retained = img;
+                retainedKey = key;
+                repaint();
+            });
+        });
+    }
+
+    //Rasterize the whole drawing into img (TYPE_INT_ARGB) with the given backend.
+    //The drawing is authored on a W x H grid; it is scaled uniformly to fit img and centred,
+    //and the pixel algorithms run on device pixels so a large image stays sharp.
+    void renderDrawing(BufferedImage img, RasterMode mode) {
+        Render r = new Render(img, mode);
+
         // Clear background in buffer (floodFill will use backgroundColor as target color)
-        fillBuffer(backgroundColor.getRGB());
+        fillBuffer(r, backgroundColor.getRGB());
 
         /* ground */
-        useColor(g,ground);
-        bresenhamLine(g,25, 425, 575, 425); // straight ground line
+        useColor(r, ground);
+        line(r, 25, 425, 575, 425); // straight ground line
         for (int xs = 30; xs <= 570; xs += 4) { // tiny sand texture
             int y = 425 + (int)(2 * Math.sin(xs * 0.08));
-            plot(g,xs, y);
+            dot(r, xs, y);
         }
 
         //Body outline by using Cubic Bezier Connect adjacent points with straight lines using the Bresenham algorithm.
-        useColor(g,outline);
+        useColor(r, outline);
 
         // Top contour
         int[][] top = new int[][]{
@@ -64,85 +197,343 @@ public class KomodoDrawing extends JPanel {
                 {306,387, 262,384, 225,381, 194,378},
                 {194,378, 162,376, 138,376, 125,373}
         };
-        for (int[] c : top)  drawCubicBezier(g,c, 180);
-        for (int[] c : bot)  drawCubicBezier(g,c, 180);
-        bresenhamLine(g,112,369, 125,373); // close the snout gap
+        for (int[] c : top)  bezier(r, c, 180);
+        for (int[] c : bot)  bezier(r, c, 180);
+        line(r, 112,369, 125,373); // close the snout gap
 
         //  Head details 
-        useColor(g,eyeColor); midpointCircle(g, 147, 362, 4);
-        useColor(g,pupil);     midpointCircle(g, 147, 362, 1);
-        useColor(g,outline);   midpointEllipse(g, 131, 366, 3, 1); //nostril
-        bresenhamLine(g,125,373, 149,371); // mouth
+        useColor(r, eyeColor); circle(r, 147, 362, 4);
+        useColor(r, pupil);     circle(r, 147, 362, 1);
+        useColor(r, outline);   ellipse(r, 131, 366, 3, 1); //nostril
+        line(r, 125,373, 149,371); // mouth
 
         // Forked tongue
-        useColor(g,tongue);
-        bresenhamLine(g,112,369, 103,370);
-        bresenhamLine(g,103,370,  99,367);
-        bresenhamLine(g,103,370,  99,372);
+        useColor(r, tongue);
+        line(r, 112,369, 103,370);
+        line(r, 103,370,  99,367);
+        line(r, 103,370,  99,372);
 
         /*  Legs & claws  */
-        useColor(g,outline);
+        useColor(r, outline);
         // Front leg
-        midpointEllipse(g, 225, 384, 6, 4); // shoulder
-        bresenhamLine(g,222, 387, 206, 406); // upper
-        bresenhamLine(g,206, 406, 222, 415);  // fore
-        midpointEllipse(g, 222, 416, 8, 4);// palm
-        bresenhamLine(g,219, 419, 216, 422); // claws
-        bresenhamLine(g,222, 419, 219, 422);
-        bresenhamLine(g,225, 419, 222, 422);
+        ellipse(r, 225, 384, 6, 4); // shoulder
+        line(r, 222, 387, 206, 406); // upper
+        line(r, 206, 406, 222, 415);  // fore
+        ellipse(r, 222, 416, 8, 4);// palm
+        line(r, 219, 419, 216, 422); // claws
+        line(r, 222, 419, 219, 422);
+        line(r, 225, 419, 222, 422);
 
         // Hind leg
-        midpointEllipse(g, 378, 387, 8, 5); // hip
-        bresenhamLine(g,375, 391, 359, 409);// thigh
-        bresenhamLine(g,359, 409, 375, 417);// shin
-        midpointEllipse(g, 376, 419, 8, 4); // foot
-        bresenhamLine(g,372, 420, 369, 423);// claws
-        bresenhamLine(g,376, 420, 373, 425);
-        bresenhamLine(g,380, 420, 378, 425);
+        ellipse(r, 378, 387, 8, 5); // hip
+        line(r, 375, 391, 359, 409);// thigh
+        line(r, 359, 409, 375, 417);// shin
+        ellipse(r, 376, 419, 8, 4); // foot
+        line(r, 372, 420, 369, 423);// claws
+        line(r, 376, 420, 373, 425);
+        line(r, 380, 420, 378, 425);
 
         //ticks on back
-        useColor(g,outline);
+        useColor(r, outline);
         for (int xs = 200; xs <= 438; xs += 16) {
             //Calculate the Y position along the parabola curve that make the pattern sticks to the back line.
             int ys = (int)(-0.00075 * (xs - 312) * (xs - 312) + 362);
-            bresenhamLine(g,xs, ys, xs + 6, ys - 6);
+            line(r, xs, ys, xs + 6, ys - 6);
         }
 
         //  Close tiny tail gap
-        bresenhamLine(g,441, 399, 444, 399);
+        line(r, 441, 399, 444, 399);
 
         /* floodfill */
 
         // Body fill backgroundColor
-        floodFill(buf, 281, 375, backgroundColor, bodyColorFill);
+        fill(r, 281, 375, backgroundColor, bodyColorFill);
 
         // belly border line
-        useColor(g,outline);
-        bresenhamLine(g,162, 381, 431, 393);
+        useColor(r, outline);
+        line(r, 162, 381, 431, 393);
         // belly tint 
-        floodFill(buf, 312, 390, bodyColorFill, belly);
+        fill(r, 312, 390, bodyColorFill, belly);
 
         //Spots by midpoint circle
-        useColor(g,bodySpot);
+        useColor(r, bodySpot);
         int[][] spots = {
                 {262,365,4}, {284,362,3}, {325,363,4},
                 {353,369,3}, {381,372,4}, {403,376,3}, {425,380,2}
         };
-        for (int[] s : spots) midpointCircle(g, s[0], s[1], s[2]);
+        for (int[] s : spots) circle(r, s[0], s[1], s[2]);
 
         // Tail stripes 
-        useColor(g,outline);
-        drawCubicBezier(g,new int[]{450,381, 459,378, 469,382, 478,380}, 60);
-        drawCubicBezier(g,new int[]{462,386, 472,383, 481,387, 492,384}, 60);
+        useColor(r, outline);
+        bezier(r, new int[]{450,381, 459,378, 469,382, 478,380}, 60);
+        bezier(r, new int[]{462,386, 472,383, 481,387, 492,384}, 60);
+
+        if (r.tiles != null) r.tiles.finish(img);
+    }
+
+    /*
+     * State of one renderDrawing call: the target image, the logical (W x H) -> device pixel
+     * mapping, the pen colour and the tile display list (TILED only). It lives on the caller's
+     * stack, so the render thread, renderFrame and the benchmarks can render the same panel at once.
+     */
+    private static final class Render implements PixelSink {
+        final BufferedImage buf;
+        final double scale;
+        final int plotSize, offX, offY;
+        final TiledRaster tiles;
+        int penRGB = Color.BLACK.getRGB();
+        final int[] penRow; // plotSize copies of penRGB, one row of a plot
+
+        Render(BufferedImage img, RasterMode mode) {
+            this.buf = img;
+            this.scale = OfflineScene.fitScale(img.getWidth(), img.getHeight(), W, H);
+            this.plotSize = Math.max(1, (int) Math.round(scale));
+            this.offX = (img.getWidth() - (int) Math.round(W * scale)) / 2;
+            this.offY = (img.getHeight() - (int) Math.round(H * scale)) / 2;
+            this.tiles = (mode == RasterMode.TILED) ? new TiledRaster(img.getWidth(), img.getHeight(), plotSize) : null;
+            this.penRow = new int[plotSize];
+            Arrays.fill(penRow, penRGB);
+        }
+
+        int devX(int x) { return offX + (int) Math.round(x * scale); }
+        int devY(int y) { return offY + (int) Math.round(y * scale); }
+        int devLen(int v) { return (int) Math.round(v * scale); }
+
+        //plot (plotSize x plotSize device pixels, 1 at the authored size), written straight into the raster
+        @Override
+        public void plot(int x, int y) {
+            int xa = Math.max(x, 0), xb = Math.min(x + plotSize, buf.getWidth());
+            int ya = Math.max(y, 0), yb = Math.min(y + plotSize, buf.getHeight());
+            if (xa >= xb || ya >= yb) return;
+            for (int yy = ya; yy < yb; yy++)
+                buf.getRaster().setDataElements(xa, yy, xb - xa, 1, penRow);
+        }
+    }
+
+    //Each primitive is either drawn now (SEQUENTIAL) or recorded into the tile display list (TILED)
+
+    private void line(Render r, int x1, int y1, int x2, int y2) {
+        if (r.tiles != null) r.tiles.line(r.penRGB, r.devX(x1), r.devY(y1), r.devX(x2), r.devY(y2));
+        else bresenhamLine(r, r.devX(x1), r.devY(y1), r.devX(x2), r.devY(y2));
+    }
+
+    private void circle(Render r, int xc, int yc, int rad) {
+        if (r.tiles != null) r.tiles.circle(r.penRGB, r.devX(xc), r.devY(yc), r.devLen(rad));
+        else midpointCircle(r, r.devX(xc), r.devY(yc), r.devLen(rad));
+    }
+
+    private void ellipse(Render r, int xc, int yc, int a, int b) {
+        if (r.tiles != null) r.tiles.ellipse(r.penRGB, r.devX(xc), r.devY(yc), r.devLen(a), r.devLen(b));
+        else midpointEllipse(r, r.devX(xc), r.devY(yc), r.devLen(a), r.devLen(b));
+    }
+
+    private void dot(Render r, int x, int y) {
+        if (r.tiles != null) r.tiles.dot(r.penRGB, r.devX(x), r.devY(y));
+        else r.plot(r.devX(x), r.devY(y));
+    }
+
+    // More samples at bigger scales so the Bresenham segments stay short.
+    // TILED records it as its Bresenham segments, so each one lands only in the tiles it crosses
+    private void bezier(Render r, int[] c, int steps) {
+        Point[] cps = new Point[]{
+                new Point(r.devX(c[0]),r.devY(c[1])), new Point(r.devX(c[2]),r.devY(c[3])),
+                new Point(r.devX(c[4]),r.devY(c[5])), new Point(r.devX(c[6]),r.devY(c[7]))
+        };
+        int n = steps * r.plotSize;
+        Point prev = cubicBerzierCurve(0.0, cps);
+        for (int i = 1; i <= n; i++) {
+            Point cur = cubicBerzierCurve(i/(double)n, cps);
+            if (r.tiles != null) r.tiles.line(r.penRGB, prev.x, prev.y, cur.x, cur.y);
+            else bresenhamLine(r, prev.x, prev.y, cur.x, cur.y);
+            prev = cur;
+        }
+    }
+
+    private void fill(Render r, int x, int y, Color target, Color replacement) {
+        if (r.tiles != null) r.tiles.fill(r.devX(x), r.devY(y), target.getRGB(), replacement.getRGB());
+        else floodFill(r.buf, r.devX(x), r.devY(y), target, replacement);
+    }
+
+    /*
+     * Tiled backend. Primitives are recorded in device pixels with their bounding box, binned
+     * into TILE x TILE tiles (in submission order) and each tile rasterizes its own list on the
+     * ForkJoinPool, clipped to the tile, so tiles never write the same pixel. A flood fill reads
+     * what was drawn before it, so it is a barrier: the pending batch is rasterized first, then
+     * the fill runs on the finished pixels.
+     */
+    private static final class TiledRaster {
+        static final int TILE = 64;
+        private static final int LINE = 0, CIRCLE = 1, ELLIPSE = 2, DOT = 3;
+        private static final int STRIDE = 10; // kind, rgb, 4 args, bbox x0, y0, x1, y1 (inclusive)
+
+        final int w, h, plotSize, tilesX, tilesY;
+        final int[] px;
+        private int[] ops = new int[STRIDE * 256];
+        private int count;
+
+        TiledRaster(int w, int h, int plotSize) {
+            this.w = w;
+            this.h = h;
+            this.plotSize = plotSize;
+            this.tilesX = (w + TILE - 1) / TILE;
+            this.tilesY = (h + TILE - 1) / TILE;
+            this.px = new int[w * h];
+        }
+
+        void clear(int argb) {
+            count = 0;
+            Arrays.fill(px, argb);
+        }
+
+        void line(int rgb, int x1, int y1, int x2, int y2) {
+            add(LINE, rgb, x1, y1, x2, y2, Math.min(x1, x2), Math.min(y1, y2), Math.max(x1, x2), Math.max(y1, y2));
+        }
+
+        void circle(int rgb, int xc, int yc, int r) {
+            add(CIRCLE, rgb, xc, yc, r, 0, xc - r, yc - r, xc + r, yc + r);
+        }
+
+        void ellipse(int rgb, int xc, int yc, int a, int b) {
+            add(ELLIPSE, rgb, xc, yc, a, b, xc - a, yc - b, xc + a, yc + b);
+        }
+
+        void dot(int rgb, int x, int y) {
+            add(DOT, rgb, x, y, 0, 0, x, y, x, y);
+        }
+
+        void fill(int x, int y, int target, int replacement) {
+            flush();
+            floodFill(px, w, h, x, y, target, replacement);
+        }
+
+        //Rasterize what is left and copy the pixels into img
+        void finish(BufferedImage img) {
+            flush();
+            img.getRaster().setDataElements(0, 0, w, h, px);
+        }
+
+        private void add(int kind, int rgb, int a, int b, int c, int d, int x0, int y0, int x1, int y1) {
+            if (count * STRIDE == ops.length) ops = Arrays.copyOf(ops, ops.length * 2);
+            int o = count++ * STRIDE;
+            ops[o] = kind; ops[o + 1] = rgb;
+            ops[o + 2] = a; ops[o + 3] = b; ops[o + 4] = c; ops[o + 5] = d;
+            // a plot covers plotSize x plotSize pixels to the right/bottom of its point
+            ops[o + 6] = x0; ops[o + 7] = y0; ops[o + 8] = x1 + plotSize - 1; ops[o + 9] = y1 + plotSize - 1;
+        }
+
+        //Bin the batch (counting sort by tile, stable so submission order is kept) and rasterize it
+        private void flush() {
+            if (count == 0) return;
+            int nTiles = tilesX * tilesY;
+            int[] start = new int[nTiles + 1];
+            for (int i = 0; i < count; i++) {
+                int o = i * STRIDE;
+                if (ops[o + 8] < 0 || ops[o + 9] < 0 || ops[o + 6] >= w || ops[o + 7] >= h) continue; // off image
+                for (int ty = tileOf(ops[o + 7], tilesY); ty <= tileOf(ops[o + 9], tilesY); ty++)
+                    for (int tx = tileOf(ops[o + 6], tilesX); tx <= tileOf(ops[o + 8], tilesX); tx++)
+                        start[ty * tilesX + tx + 1]++;
+            }
+            for (int t = 0; t < nTiles; t++) start[t + 1] += start[t];
+            int[] binned = new int[start[nTiles]];
+            int[] next = Arrays.copyOf(start, nTiles);
+            for (int i = 0; i < count; i++) {
+                int o = i * STRIDE;
+                if (ops[o + 8] < 0 || ops[o + 9] < 0 || ops[o + 6] >= w || ops[o + 7] >= h) continue;
+                for (int ty = tileOf(ops[o + 7], tilesY); ty <= tileOf(ops[o + 9], tilesY); ty++)
+                    for (int tx = tileOf(ops[o + 6], tilesX); tx <= tileOf(ops[o + 8], tilesX); tx++)
+                        binned[next[ty * tilesX + tx]++] = i;
+            }
 
-        //Present buffer
-        g.drawImage(buf, 0, 0, null);
+            List<Callable<Void>> jobs = new ArrayList<>();
+            for (int t = 0; t < nTiles; t++) {
+                if (start[t] == start[t + 1]) continue;
+                int tile = t;
+                jobs.add(() -> {
+                    rasterTile(tile, binned, start[tile], start[tile + 1]);
+                    return null;
+                });
+            }
+            try {
+                for (Future<Void> f : ForkJoinPool.commonPool().invokeAll(jobs)) f.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Tile rasterization interrupted", e);
+            } catch (ExecutionException e) {
+                throw new IllegalStateException("Tile rasterization failed", e.getCause());
+            }
+            count = 0;
+        }
+
+        private static int tileOf(int v, int tiles) {
+            return Math.min(tiles - 1, Math.max(0, v) / TILE);
+        }
+
+        private void rasterTile(int tile, int[] binned, int from, int to) {
+            TileSink sink = new TileSink(tile % tilesX * TILE, tile / tilesX * TILE);
+            for (int i = from; i < to; i++) {
+                int o = binned[i] * STRIDE;
+                sink.rgb = ops[o + 1];
+                switch (ops[o]) {
+                    case LINE -> bresenhamLine(sink, ops[o + 2], ops[o + 3], ops[o + 4], ops[o + 5]);
+                    case CIRCLE -> midpointCircle(sink, ops[o + 2], ops[o + 3], ops[o + 4]);
+                    case ELLIPSE -> midpointEllipse(sink, ops[o + 2], ops[o + 3], ops[o + 4], ops[o + 5]);
+                    default -> sink.plot(ops[o + 2], ops[o + 3]);
+                }
+            }
+        }
+
+        //Writes a plotSize square, clipped to one tile
+        private final class TileSink implements PixelSink {
+            final int x0, y0, x1, y1;
+            int rgb;
+
+            TileSink(int x0, int y0) {
+                this.x0 = x0;
+                this.y0 = y0;
+                this.x1 = Math.min(x0 + TILE, w);
+                this.y1 = Math.min(y0 + TILE, h);
+            }
+
+            @Override
+            public void plot(int x, int y) {
+                int xa = Math.max(x, x0), xb = Math.min(x + plotSize, x1);
+                int ya = Math.max(y, y0), yb = Math.min(y + plotSize, y1);
+                for (int yy = ya; yy < yb; yy++)
+                    for (int xx = xa; xx < xb; xx++) px[yy * w + xx] = rgb;
+            }
+        }
+
+        //Same fill as floodFill(BufferedImage, ...) (the 4-neighbours of each filled pixel), on the raw pixels
+        private static void floodFill(int[] px, int w, int h, int x, int y, int target, int replacement) {
+            if (target == replacement) return;
+            int[] stack = new int[256];
+            int top = 0;
+            stack[top++] = y * w + x;
+            while (top > 0) {
+                if (top + 4 > stack.length) stack = Arrays.copyOf(stack, stack.length * 2);
+                int p = stack[--top];
+                int cx = p % w, cy = p / w;
+                if (cy + 1 < h && px[p + w] == target) { px[p + w] = replacement; stack[top++] = p + w; }
+                if (cy - 1 >= 0 && px[p - w] == target) { px[p - w] = replacement; stack[top++] = p - w; }
+                if (cx + 1 < w && px[p + 1] == target) { px[p + 1] = replacement; stack[top++] = p + 1; }
+                if (cx - 1 >= 0 && px[p - 1] == target) { px[p - 1] = replacement; stack[top++] = p - 1; }
+            }
+        }
     }
 
     /*Algorithms */
 
+    //Pixel sink the raster algorithms plot into: the screen (plot), a render's screen + buffer or one tile of the tiled backend
+    interface PixelSink {
+        void plot(int x, int y);
+    }
+
     // Bresenham
     public void bresenhamLine(Graphics g,int x1, int y1, int x2, int y2) {
+        bresenhamLine((x, y) -> plot(g, x, y), x1, y1, x2, y2);
+    }
+
+    static void bresenhamLine(PixelSink s, int x1, int y1, int x2, int y2) {
         int dx = Math.abs(x2 - x1);
         int dy = Math.abs(y2 - y1);
 
@@ -160,7 +551,7 @@ public class KomodoDrawing extends JPanel {
         int x = x1, y = y1;
 
         for(int i = 0; i <= dx; i++) {
-            plot(g,x, y);
+            s.plot(x, y);
             if(D >= 0) {
                 if(isSwap) x += sx;
                 else       y += sy;
@@ -194,7 +585,7 @@ public class KomodoDrawing extends JPanel {
     }
 
     // Stroke a Bezier by connecting sampled points with Bresenham
-    private void drawCubicBezier(Graphics g,int[] c, int steps) {
+    void drawCubicBezier(Graphics g,int[] c, int steps) {
         Point[] cps = new Point[]{
                 new Point(c[0],c[1]), new Point(c[2],c[3]),
                 new Point(c[4],c[5]), new Point(c[6],c[7])
@@ -239,6 +630,10 @@ public class KomodoDrawing extends JPanel {
 
     // Midpoint circle
     public void midpointCircle(Graphics g, int xc, int yc, int r) {
+        midpointCircle((x, y) -> plot(g, x, y), xc, yc, r);
+    }
+
+    static void midpointCircle(PixelSink s, int xc, int yc, int r) {
         int x = 0;
         int y = r;
         int Dx = 2 * x;
@@ -246,14 +641,14 @@ public class KomodoDrawing extends JPanel {
         int D = 1 - r;
 
         while (x <= y) {
-            plot(g,  x + xc,  y + yc);
-            plot(g, -x + xc,  y + yc);
-            plot(g,  x + xc, -y + yc);
-            plot(g, -x + xc, -y + yc);
-            plot(g,  y + xc,  x + yc);
-            plot(g, -y + xc,  x + yc);
-            plot(g,  y + xc, -x + yc);
-            plot(g, -y + xc, -x + yc);
+            s.plot(x + xc,  y + yc);
+            s.plot(-x + xc,  y + yc);
+            s.plot(x + xc, -y + yc);
+            s.plot(-x + xc, -y + yc);
+            s.plot(y + xc,  x + yc);
+            s.plot(-y + xc,  x + yc);
+            s.plot(y + xc, -x + yc);
+            s.plot(-y + xc, -x + yc);
 
             x++;
             Dx += 2;
@@ -269,6 +664,10 @@ public class KomodoDrawing extends JPanel {
 
     // Midpoint ellipse
     public void midpointEllipse(Graphics g,int xc, int yc, int a, int b) {
+        midpointEllipse((x, y) -> plot(g, x, y), xc, yc, a, b);
+    }
+
+    static void midpointEllipse(PixelSink s, int xc, int yc, int a, int b) {
         int a2 = a * a;
         int b2 = b * b;
         int twoA2 = 2 * a2;
@@ -282,10 +681,10 @@ public class KomodoDrawing extends JPanel {
         int Dx = 0, Dy = twoA2 * y;
 
         while(Dx <= Dy) {
-            plot(g,x+xc,y+yc);
-            plot(g,x+xc,-y+yc);
-            plot(g,-x+xc,y+yc);
-            plot(g,-x+xc,-y+yc);
+            s.plot(x+xc,y+yc);
+            s.plot(x+xc,-y+yc);
+            s.plot(-x+xc,y+yc);
+            s.plot(-x+xc,-y+yc);
 
             x++;
             Dx += twoB2;
@@ -305,10 +704,10 @@ public class KomodoDrawing extends JPanel {
         Dy = 0;
 
         while(Dx >= Dy) {
-            plot(g,x+xc,y+yc);
-            plot(g,x+xc,-y+yc);
-            plot(g,-x+xc,y+yc);
-            plot(g,-x+xc,-y+yc);
+            s.plot(x+xc,y+yc);
+            s.plot(x+xc,-y+yc);
+            s.plot(-x+xc,y+yc);
+            s.plot(-x+xc,-y+yc);
 
             y++;
             Dy += twoA2;
@@ -322,21 +721,24 @@ public class KomodoDrawing extends JPanel {
         }
     }
 
-    //plot
+    //plot (one pixel on g; renderDrawing plots through its Render, which writes the image's raster)
     public void plot(Graphics g, int x, int y) {
-        g.fillRect(x, y, 1, 1);  // draw to screen
-        if (x>=0 && x<W && y>=0 && y<H) {
-            buf.setRGB(x, y, penRGB); // mirror into buffer
-        }
+        g.fillRect(x, y, 1, 1);
     }
 
     //SetColor
-    private void useColor(Graphics g,Color c) { g.setColor(c); penRGB = c.getRGB(); }
+    private static void useColor(Render r, Color c) { r.penRGB = c.getRGB(); Arrays.fill(r.penRow, r.penRGB); }
 
-    private void fillBuffer(int argb) {
-        int[] row = new int[W];
-        for (int i = 0; i < W; i++) row[i] = argb;
-        for (int y = 0; y < H; y++) buf.getRaster().setDataElements(0, y, W, 1, row);
+    private static void fillBuffer(Render r, int argb) {
+        if (r.tiles != null) {
+            r.tiles.clear(argb);
+            return;
+        }
+        BufferedImage buf = r.buf;
+        int w = buf.getWidth(), h = buf.getHeight();
+        int[] row = new int[w];
+        for (int i = 0; i < w; i++) row[i] = argb;
+        for (int y = 0; y < h; y++) buf.getRaster().setDataElements(0, y, w, 1, row);
     }
 
     class Point {
@@ -0,0 +1,155 @@
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import javax.imageio.ImageIO;
+
+/**
+ * Headless renderer: drives a scene with a synthetic clock at a fixed dt and
+ * writes every frame as frame_NNNNNN.png.
+ *
+ * The scene itself is stepped on the calling thread (its state is sequential),
+ * while PNG encoding runs on a thread pool. Frame buffers come from a fixed
+ * pool of `window` images, so at most `window` frames are in flight and the
+ * renderer blocks when the encoders fall behind.
+ *
+ * Scenes are created with a fixed-step SimulationClock and a seed, so the same
+ * arguments always produce the same frames. Frames can be any size (e.g.
+ * 3840x2160): the scene is scaled uniformly, letterboxed and rasterized at that
+ * resolution.
+ *
+ * Usage: java OfflineRenderer scene outDir [seconds=10] [fps=60] [threads=cores] [seed=23] [size=600x600]
+ */
+public class OfflineRenderer {
+
+    public static void main(String[] args) throws Exception {
+        System.setProperty("java.awt.headless", "true");
+        if (args.length < 2) {
+            System.err.println("Usage: java OfflineRenderer <fps|ball|pit|crowd|drawkomodo|komodo> <outDir> [seconds=10] [fps=60] [threads] [seed=23] [WxH]");
+            System.exit(2);
+        }
+        String sceneName = args[0];
+        File outDir = new File(args[1]);
+        double seconds = (args.length > 2) ? Double.parseDouble(args[2]) : 10.0;
+        int fps = (args.length > 3) ? Integer.parseInt(args[3]) : 60;
+        int threads = (args.length > 4) ? Integer.parseInt(args[4]) : Runtime.getRuntime().availableProcessors();
+        long seed = (args.length > 5) ? Long.parseLong(args[5]) : FPS_Coding.DEFAULT_SEED;
+
+        int frames = (int) Math.round(seconds * fps);
+        SimulationClock clock = SimulationClock.fixedStep(1.0 / fps);
+        OfflineScene scene = OfflineScene.create(sceneName, clock, seed);
+        int[] size = (args.length > 6) ? parseSize(args[6]) : new int[] { scene.frameWidth(), scene.frameHeight() };
+        ExecutorService encoders = Executors.newFixedThreadPool(threads);
+        long start = System.nanoTime();
+        try {
+            renderSequence(scene, clock, 0, frames, size[0], size[1], outDir, encoders, 2 * threads);
+        } finally {
+            encoders.shutdown();
+        }
+        double took = (System.nanoTime() - start) / 1e9;
+        System.out.printf("%s: %d frames in %.2f s (%.1f frames/s)%n", sceneName, frames, took, frames / took);
+    }
+
+    /**
+     * Step a scene forward without rendering until its clock reaches `frame`.
+     * Scene state only depends on the steps taken, so this lands on the same
+     * state as rendering every frame would. A scene that can seek jumps there
+     * directly and only the clock is ticked.
+     */
+    public static void advanceTo(OfflineScene scene, SimulationClock clock, long frame) {
+        if (clock.frame() < frame && clock.isFixedStep() && scene.seek(frame * clock.dt())) {
+            while (clock.frame() < frame)
+                clock.tick();
+            return;
+        }
+        while (clock.frame() < frame)
+            scene.step(clock.tick());
+    }
+
+    /** "WxH" (e.g. 3840x2160) as {width, height}. */
+    public static int[] parseSize(String spec) {
+        int x = spec.toLowerCase().indexOf('x');
+        if (x < 0)
+            throw new IllegalArgumentException("Size must be WxH: " + spec);
+        int w = Integer.parseInt(spec.substring(0, x)), h = Integer.parseInt(spec.substring(x + 1));
+        if (w <= 0 || h <= 0)
+            throw new IllegalArgumentException("Size must be positive: " + spec);
+        return new int[] { w, h };
+    }
+
+    /**
+     * Render `frames` frames starting at the scene's current state, stepping the
+     * clock between frames, and write them as firstIndex, firstIndex + 1, ...
+     * at the scene's logical size. Blocks until every frame is written.
+     */
+    public static void renderSequence(OfflineScene scene, SimulationClock clock, int firstIndex, int frames,
+            File outDir, ExecutorService encoders, int window) throws IOException, InterruptedException {
+        renderSequence(scene, clock, firstIndex, frames, scene.frameWidth(), scene.frameHeight(), outDir, encoders,
+                window);
+    }
+
+    /** Same as above, but every frame is width x height pixels. */
+    public static void renderSequence(OfflineScene scene, SimulationClock clock, int firstIndex, int frames,
+            int width, int height, File outDir, ExecutorService encoders, int window)
+            throws IOException, InterruptedException {
+        if (!outDir.isDirectory() && !outDir.mkdirs())
+            throw new IOException("Cannot create " + outDir);
+
+        BlockingQueue<BufferedImage> free = new ArrayBlockingQueue<>(window);
+        for (int i = 0; i < window; i++)
+            free.add(new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB));
+
+        ArrayDeque<Future<?>> inFlight = new ArrayDeque<>();
+        try {
+            for (int i = 0; i < frames; i++) {
+                BufferedImage img = free.take(); // back-pressure: waits for an encoder to hand a buffer back
+                Graphics2D g = img.createGraphics();
+                scene.renderFrame(g, width, height);
+                g.dispose();
+                scene.step(clock.tick());
+
+                File out = frameFile(outDir, firstIndex + i);
+                inFlight.add(encoders.submit(() -> {
+                    try {
+                        ImageIO.write(img, "png", out);
+                    } finally {
+                        free.add(img);
+                    }
+                    return null;
+                }));
+
+                // Surface encoder failures in frame order without waiting on unfinished ones
+                while (!inFlight.isEmpty() && inFlight.peek().isDone())
+                    await(inFlight.poll());
+            }
+            while (!inFlight.isEmpty())
+                await(inFlight.poll());
+        } finally {
+            for (Future<?> f : inFlight)
+                f.cancel(false);
+        }
+    }
+
+    public static File frameFile(File outDir, int index) {
+        return new File(outDir, String.format("frame_%06d.png", index));
+    }
+
+    private static void await(Future<?> f) throws IOException, InterruptedException {
+        try {
+            f.get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException io)
+                throw io;
+            throw new IOException("Frame encoding failed", cause);
+        }
+    }
+}
@@ -0,0 +1,117 @@
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+
+/**
+ * A scene that can be driven frame by frame without a window.
+ * The caller owns the clock: it alternates renderFrame() and step(dt), so the
+ * same scene can run in a JFrame loop or in OfflineRenderer at a fixed dt.
+ */
+public interface OfflineScene {
+
+    /** Advance the animation by dt seconds (normally clock.tick() of the driving clock). */
+    void step(double dt);
+
+    /**
+     * Paint the current state into a width x height target. The scene is scaled
+     * uniformly from its logical frameWidth() x frameHeight() and centred, and it
+     * rasterizes at the target resolution instead of stretching a small image.
+     */
+    void renderFrame(Graphics2D g, int width, int height);
+
+    /**
+     * Jump straight to simulation time t (s), as if stepped there from the
+     * start. Scenes whose state is a closed-form function of time do it in one
+     * evaluation and return true; the rest return false, change nothing, and
+     * have to be stepped.
+     */
+    default boolean seek(double t) {
+        return false;
+    }
+
+    /** Paint at the logical size. */
+    default void renderFrame(Graphics2D g) {
+        renderFrame(g, frameWidth(), frameHeight());
+    }
+
+    /**
+     * Rendering hint carrying the device-to-logical detail factor (an Integer >= 1).
+     * letterbox() sets it; graphics without it (windows, sprite images) draw at 1.
+     * It travels with g.create(), and a camera zoom applied later does not change it.
+     */
+    RenderingHints.Key DETAIL = new RenderingHints.Key(0x5CA1E) {
+        @Override
+        public boolean isCompatibleValue(Object val) {
+            return val instanceof Integer i && i >= 1;
+        }
+    };
+
+    /** Logical width (the coordinate space the scene is authored in). */
+    int frameWidth();
+
+    /** Logical height. */
+    int frameHeight();
+
+    /** Uniform logical-to-device scale that fits logicalW x logicalH into width x height. */
+    static double fitScale(int width, int height, int logicalW, int logicalH) {
+        return Math.min(width / (double) logicalW, height / (double) logicalH);
+    }
+
+    /**
+     * Device pixels per logical pixel of the target, rounded (the DETAIL hint,
+     * 1 when unset). Polygon helpers multiply their integer coordinates by this so
+     * vertices land on device pixels; at 1 they take the original path unchanged.
+     */
+    static int detailOf(Graphics2D g) {
+        Object k = g.getRenderingHint(DETAIL);
+        return (k instanceof Integer i) ? i : 1;
+    }
+
+    /**
+     * Graphics for vector scenes: fills the letterbox bars black and returns a
+     * copy of g translated, scaled and clipped to the logical frame. Dispose it after use.
+     */
+    static Graphics2D letterbox(Graphics2D g, int width, int height, int logicalW, int logicalH) {
+        double s = fitScale(width, height, logicalW, logicalH);
+        double ox = (width - logicalW * s) / 2, oy = (height - logicalH * s) / 2;
+        if (ox > 0 || oy > 0) {
+            g.setColor(Color.BLACK);
+            g.fillRect(0, 0, width, height);
+        }
+        Graphics2D gg = (Graphics2D) g.create();
+        gg.translate(ox, oy);
+        gg.scale(s, s);
+        gg.clipRect(0, 0, logicalW, logicalH);
+        gg.setRenderingHint(DETAIL, Math.max(1, (int) Math.round(s)));
+        return gg;
+    }
+
+    /**
+     * Scene by name: fps, ball, pit (BallDrop's ball pit), crowd (TypingCrowd), drawkomodo or komodo
+     * (class names work too).
+     * With a fixed-step clock and the same seed, frame N is identical on every run.
+     */
+    static OfflineScene create(String name, SimulationClock clock, long seed) {
+        switch (name.toLowerCase()) {
+            case "fps":
+            case "fps_coding":
+                return new FPS_Coding(clock, seed);
+            case "ball":
+            case "balldrop":
+                return new BallDrop(clock);
+            case "pit":
+                return new BallDrop(clock, BallDrop.PIT_BALLS, seed);
+            case "crowd":
+            case "typingcrowd":
+                return new TypingCrowd(clock, TypingCrowd.DEFAULT_TYPISTS, seed);
+            case "drawkomodo":
+                return new DrawKomodo(clock);
+            case "komodo":
+            case "komododrawing":
+                return new KomodoDrawing();
+            default:
+                throw new IllegalArgumentException("Unknown scene: " + name
+                        + " (expected fps, ball, pit, crowd, drawkomodo or komodo)");
+        }
+    }
+}
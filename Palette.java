@@ -0,0 +1,68 @@
+import java.awt.Color;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Shared colour cache for the scenes.
+ *
+ * Base colours are interned by RGB and every base colour gets a 256-step alpha
+ * ramp, built lazily on first use (the same idea as BallDrop's old
+ * flashPalette, but for any colour). Scenes look colours up once into fields
+ * and then only index ramps while painting, so a steady-state frame allocates
+ * no Color objects.
+ */
+public final class Palette {
+
+    private static final Map<Integer, Color> BASE = new HashMap<>();
+    private static final Map<Integer, Color[]> RAMPS = new HashMap<>();
+
+    private Palette() {
+    }
+
+    /** Interned opaque colour. */
+    public static synchronized Color rgb(int r, int g, int b) {
+        int key = pack(r, g, b);
+        Color c = BASE.get(key);
+        if (c == null) {
+            c = new Color(r, g, b);
+            BASE.put(key, c);
+        }
+        return c;
+    }
+
+    /** Alpha ramp of a base colour: ramp[a] is (r, g, b, a) for a in 0..255. */
+    public static synchronized Color[] ramp(int r, int g, int b) {
+        int key = pack(r, g, b);
+        Color[] ramp = RAMPS.get(key);
+        if (ramp == null) {
+            ramp = new Color[256];
+            for (int a = 0; a < 255; a++)
+                ramp[a] = new Color(r, g, b, a);
+            ramp[255] = rgb(r, g, b);
+            RAMPS.put(key, ramp);
+        }
+        return ramp;
+    }
+
+    public static Color[] ramp(Color base) {
+        return ramp(base.getRed(), base.getGreen(), base.getBlue());
+    }
+
+    /** Fixed-alpha colour taken from the base colour's ramp. */
+    public static Color rgba(int r, int g, int b, int a) {
+        return ramp(r, g, b)[clamp255(a)];
+    }
+
+    /** Ramp entry for an opacity in [0,1] (truncated like (int) (255 * a)). */
+    public static Color alpha(Color[] ramp, double a) {
+        return ramp[clamp255((int) (255 * a))];
+    }
+
+    private static int clamp255(int a) {
+        return (a < 0) ? 0 : ((a > 255) ? 255 : a);
+    }
+
+    private static int pack(int r, int g, int b) {
+        return ((r & 0xFF) << 16) | ((g & 0xFF) << 8) | (b & 0xFF);
+    }
+}
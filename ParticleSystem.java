@@ -0,0 +1,204 @@
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.util.Arrays;
+
+/**
+ * Short-lived glowing particles (sparks, dust) in a fixed pool of parallel arrays.
+ *
+ * Every array is allocated once in the constructor, so emitting, stepping and
+ * killing particles never allocates: live particles are the first count()
+ * slots, a dead one is replaced by the last live one, and an emit that finds
+ * the pool full drops the extra particles instead of growing it.
+ *
+ * Motion is solved exactly per step (gravity plus linear drag has a closed
+ * form), so step(a) then step(b) lands where step(a + b) does and a burst looks
+ * the same at any frame rate. Emits take a seed instead of a Random, so the
+ * same burst can be replayed, e.g. when a scene seeks.
+ *
+ * Drawing is one batch: overlay() adds every particle's colour into a single
+ * premultiplied image (channels add up and saturate, alpha is the brightest
+ * channel), which the caller blits once with the normal composite. Over dark
+ * pixels that is additive blending; over bright ones it keeps the particle's
+ * colour instead of washing out to white.
+ */
+public final class ParticleSystem {
+
+    /**
+     * How an emit spreads its particles: speed (px/s) drawn in [speedMin,
+     * speedMax] in a direction within spread (rad) of angle (rad, 0 = +x, y
+     * down), start within radius (px) of the emit point, life (s) in [lifeMin,
+     * lifeMax]. drag (1/s) slows them exponentially, gravity (px/s^2) pulls them down.
+     * Each is a square of size px in colour rgb.
+     */
+    public record Emitter(double speedMin, double speedMax, double angle, double spread, double radius,
+            double lifeMin, double lifeMax, double drag, double gravity, double size, int rgb) {
+        public Emitter {
+            if (!(drag > 0) || !(size > 0) || !(lifeMin > 0) || !(lifeMax >= lifeMin) || !(speedMax >= speedMin))
+                throw new IllegalArgumentException("Bad emitter: speed [" + speedMin + ", " + speedMax + "], life ["
+                        + lifeMin + ", " + lifeMax + "], drag " + drag + ", size " + size);
+        }
+    }
+
+    private final double[] x, y, vx, vy, age, life, drag, gravity;
+    private final float[] size;
+    private final int[] rgb;
+    private int count;
+
+    //Overlay image and the rows written into it last time (cleared before the next one)
+    private BufferedImage overlay;
+    private int[] pixels;
+    private int dirtyTop, dirtyBottom = -1;
+
+    /** A pool of at most capacity live particles. */
+    public ParticleSystem(int capacity) {
+        if (capacity < 1)
+            throw new IllegalArgumentException("capacity must be >= 1: " + capacity);
+        x = new double[capacity];
+        y = new double[capacity];
+        vx = new double[capacity];
+        vy = new double[capacity];
+        age = new double[capacity];
+        life = new double[capacity];
+        drag = new double[capacity];
+        gravity = new double[capacity];
+        size = new float[capacity];
+        rgb = new int[capacity];
+    }
+
+    public int count() {
+        return count;
+    }
+
+    public int capacity() {
+        return x.length;
+    }
+
+    public void clear() {
+        count = 0;
+    }
+
+    /**
+     * Emit n particles from (px, py) as e describes; the same seed gives the
+     * same particles. Returns how many fit in the pool.
+     */
+    public int emit(Emitter e, double px, double py, int n, long seed) {
+        int added = Math.min(n, x.length - count);
+        long s = seed;
+        for (int k = 0; k < added; k++) {
+            int i = count++;
+            double a = e.angle() + e.spread() * (2 * unit(s += GOLDEN) - 1);
+            double v = e.speedMin() + (e.speedMax() - e.speedMin()) * unit(s += GOLDEN);
+            double ra = 2 * Math.PI * unit(s += GOLDEN), rr = e.radius() * Math.sqrt(unit(s += GOLDEN));
+            x[i] = px + rr * Math.cos(ra);
+            y[i] = py + rr * Math.sin(ra);
+            vx[i] = v * Math.cos(a);
+            vy[i] = v * Math.sin(a);
+            age[i] = 0;
+            life[i] = e.lifeMin() + (e.lifeMax() - e.lifeMin()) * unit(s += GOLDEN);
+            drag[i] = e.drag();
+            gravity[i] = e.gravity();
+            size[i] = (float) e.size();
+            rgb[i] = e.rgb();
+        }
+        return added;
+    }
+
+    //SplitMix64: a counter stepped by GOLDEN, mixed into [0, 1). No state besides the counter, no allocation.
+    private static final long GOLDEN = 0x9E3779B97F4A7C15L;
+
+    private static double unit(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        z ^= z >>> 31;
+        return (z >>> 11) * 0x1.0p-53;
+    }
+
+    /** Advance every particle by dt seconds and drop the ones whose life is over. */
+    public void step(double dt) {
+        if (!(dt > 0))
+            return;
+        int n = count;
+        for (int i = 0; i < n;) {
+            double a = age[i] + dt;
+            if (a >= life[i]) { //dead: the last live particle takes its slot and is looked at next
+                n--;
+                move(n, i);
+                continue;
+            }
+            age[i] = a;
+            // v' = -k v + (0, g): v decays by e = exp(-k dt) towards the terminal (0, g/k),
+            // and x moves by the integral of v over the step
+            double k = drag[i], e = Math.exp(-k * dt), f = (1 - e) / k, term = gravity[i] / k;
+            x[i] += vx[i] * f;
+            y[i] += vy[i] * f + term * (dt - f);
+            vx[i] *= e;
+            vy[i] = vy[i] * e + term * (1 - e);
+            i++;
+        }
+        count = n;
+    }
+
+    private void move(int from, int to) {
+        x[to] = x[from];
+        y[to] = y[from];
+        vx[to] = vx[from];
+        vy[to] = vy[from];
+        age[to] = age[from];
+        life[to] = life[from];
+        drag[to] = drag[from];
+        gravity[to] = gravity[from];
+        size[to] = size[from];
+        rgb[to] = rgb[from];
+    }
+
+    /**
+     * The particles rasterized into a width x height premultiplied image, each
+     * a square of size * scale px centred on (x, y) * scale, fading out over its life.
+     * The image is reused (valid until the next call); null when there is
+     * nothing to draw.
+     */
+    public BufferedImage overlay(int width, int height, double scale) {
+        if (overlay == null || overlay.getWidth() != width || overlay.getHeight() != height) {
+            overlay = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB_PRE);
+            pixels = ((DataBufferInt) overlay.getRaster().getDataBuffer()).getData();
+            dirtyBottom = -1;
+        }
+        if (dirtyBottom >= dirtyTop)
+            Arrays.fill(pixels, dirtyTop * width, (dirtyBottom + 1) * width, 0);
+        dirtyTop = height;
+        dirtyBottom = -1;
+        if (count == 0)
+            return null;
+
+        final int[] p = pixels;
+        for (int i = 0; i < count; i++) {
+            int side = Math.max(1, (int) (size[i] * scale + 0.5));
+            int x0 = (int) (x[i] * scale - 0.5 * side), y0 = (int) (y[i] * scale - 0.5 * side);
+            int x1 = Math.min(width, x0 + side), y1 = Math.min(height, y0 + side);
+            x0 = Math.max(0, x0);
+            y0 = Math.max(0, y0);
+            if (x0 >= x1 || y0 >= y1)
+                continue;
+            double fade = 1 - age[i] / life[i];
+            int w8 = (int) (256 * fade * fade); //quadratic: bright while young, a soft tail at the end
+            int c = rgb[i];
+            int r = (((c >> 16) & 255) * w8) >> 8, g = (((c >> 8) & 255) * w8) >> 8, b = ((c & 255) * w8) >> 8;
+            for (int py = y0; py < y1; py++) {
+                int row = py * width;
+                for (int px = x0; px < x1; px++) {
+                    int d = p[row + px];
+                    int dr = Math.min(255, ((d >> 16) & 255) + r);
+                    int dg = Math.min(255, ((d >> 8) & 255) + g);
+                    int db = Math.min(255, (d & 255) + b);
+                    int da = Math.max(dr, Math.max(dg, db));
+                    p[row + px] = (da << 24) | (dr << 16) | (dg << 8) | db;
+                }
+            }
+            if (y0 < dirtyTop)
+                dirtyTop = y0;
+            if (y1 - 1 > dirtyBottom)
+                dirtyBottom = y1 - 1;
+        }
+        return dirtyBottom >= 0 ? overlay : null;
+    }
+}
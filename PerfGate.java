@@ -0,0 +1,274 @@
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * Performance regression gate over JMH results.
+ *
+ * Compares a results file of the JMH suite (gradle jmh writes build/jmh/results.json)
+ * with a stored baseline from an earlier run of it, benchmark by benchmark. A
+ * benchmark counts as slower or faster only when the two 99.9% confidence
+ * intervals JMH reports do not overlap, so noise within the error bars is never
+ * reported. The exit code is 1 when a significant slowdown exceeds the
+ * threshold (percent of the baseline score), or when a baseline benchmark is
+ * missing from the results (renamed, deleted or not run) unless -allow-missing
+ * is given. Files without a confidence interval for some benchmark (JMH writes
+ * NaN when there were too few measurement iterations) are refused with exit
+ * code 2, since nothing could ever fail against them.
+ *
+ * Compare runs from the same machine and JVM; the baseline is only meaningful there.
+ * To record one, keep a copy of a results file.
+ *
+ * Usage: java PerfGate baseline.json results.json [-threshold 10] [-f regex] [-allow-missing]
+ */
+public class PerfGate {
+
+    /** One benchmark's score with its confidence half-width, keyed by benchmark and parameters. */
+    record Score(String id, double score, double error, String unit) {
+        double low() {
+            return score - error;
+        }
+
+        double high() {
+            return score + error;
+        }
+
+        boolean hasInterval() {
+            return Double.isFinite(score) && Double.isFinite(error);
+        }
+    }
+
+    enum Verdict { SAME, FASTER, SLOWER, NEW, MISSING }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2)
+            usage();
+        Pattern filter = null;
+        double threshold = 10;
+        boolean allowMissing = false;
+        for (int i = 2; i < args.length; i++) {
+            switch (args[i]) {
+                case "-threshold" -> threshold = Double.parseDouble(args[++i]);
+                case "-f" -> filter = Pattern.compile(args[++i]);
+                case "-allow-missing" -> allowMissing = true;
+                default -> usage();
+            }
+        }
+
+        Map<String, Score> baseline = parse(Files.readString(Paths.get(args[0])));
+        Map<String, Score> current = parse(Files.readString(Paths.get(args[1])));
+        if (filter != null) {
+            Pattern f = filter;
+            baseline.keySet().removeIf(id -> !f.matcher(id).find());
+            current.keySet().removeIf(id -> !f.matcher(id).find());
+        }
+        boolean usable = usable(args[0], baseline) & usable(args[1], current);
+        if (!usable)
+            System.exit(2);
+        System.exit(report(baseline, current, threshold, allowMissing) ? 0 : 1);
+    }
+
+    // Without an error interval every comparison would come out SAME, so such a file cannot gate anything
+    private static boolean usable(String file, Map<String, Score> scores) {
+        boolean ok = true;
+        for (Score s : scores.values()) {
+            if (!s.hasInterval()) {
+                System.err.println(file + ": " + s.id() + " has no confidence interval (score " + s.score() + " +- "
+                        + s.error() + "); run JMH with more measurement iterations");
+                ok = false;
+            }
+        }
+        return ok;
+    }
+
+    private static void usage() {
+        System.err.println("Usage: java PerfGate <baseline.json> <results.json> [-threshold 10] [-f regex] [-allow-missing]");
+        System.exit(2);
+    }
+
+    /** Significant change of cur against base: only disjoint confidence intervals count. */
+    static Verdict verdict(Score base, Score cur) {
+        if (base == null)
+            return Verdict.NEW;
+        if (cur == null)
+            return Verdict.MISSING;
+        if (cur.low() > base.high())
+            return Verdict.SLOWER;
+        if (cur.high() < base.low())
+            return Verdict.FASTER;
+        return Verdict.SAME;
+    }
+
+    /**
+     * Print one line per benchmark and a summary; true when no slowdown crosses the threshold
+     * and, unless allowMissing, every baseline benchmark was measured again.
+     */
+    static boolean report(Map<String, Score> baseline, Map<String, Score> current, double thresholdPct,
+            boolean allowMissing) {
+        Map<String, Score> all = new LinkedHashMap<>(baseline);
+        current.forEach(all::putIfAbsent);
+        int failed = 0, slower = 0, faster = 0, missing = 0;
+        for (String id : all.keySet()) {
+            Score base = baseline.get(id), cur = current.get(id);
+            Verdict v = verdict(base, cur);
+            double change = (base != null && cur != null) ? 100 * (cur.score() - base.score()) / base.score() : 0;
+            boolean fail = (v == Verdict.SLOWER && change > thresholdPct) || (v == Verdict.MISSING && !allowMissing);
+            if (fail)
+                failed++;
+            if (v == Verdict.SLOWER)
+                slower++;
+            if (v == Verdict.FASTER)
+                faster++;
+            if (v == Verdict.MISSING)
+                missing++;
+            String label = fail ? "FAIL" : v.name();
+            if (base != null && cur != null)
+                System.out.printf(Locale.ROOT, "%-8s %-56s %12.3f -> %12.3f %s (%+.1f%%)%n", label, id,
+                        base.score(), cur.score(), cur.unit(), change);
+            else
+                System.out.printf(Locale.ROOT, "%-8s %s%s%n", label, id, v == Verdict.MISSING ? " (not in the results)" : "");
+        }
+        System.out.printf(Locale.ROOT, "%d benchmarks: %d slower, %d faster, %d missing, %d failed (threshold %.1f%%%s)%n",
+                all.size(), slower, faster, missing, failed, thresholdPct, allowMissing ? ", missing allowed" : "");
+        return failed == 0;
+    }
+
+    /* ========================= JMH JSON ========================= */
+
+    /** Scores from a JMH result file, keyed by "Class.method{param=value, ...}". */
+    @SuppressWarnings("unchecked")
+    static Map<String, Score> parse(String json) {
+        Map<String, Score> scores = new LinkedHashMap<>();
+        for (Object o : (List<Object>) new Json(json).value()) {
+            Map<String, Object> run = (Map<String, Object>) o;
+            String name = (String) run.get("benchmark");
+            name = name.substring(name.lastIndexOf('.', name.lastIndexOf('.') - 1) + 1); // drop the package
+            Map<String, Object> params = (Map<String, Object>) run.get("params");
+            String id = (params == null || params.isEmpty()) ? name : name + params;
+            Map<String, Object> metric = (Map<String, Object>) run.get("primaryMetric");
+            scores.put(id, new Score(id, number(metric.get("score")), number(metric.get("scoreError")),
+                    (String) metric.get("scoreUnit")));
+        }
+        return scores;
+    }
+
+    private static double number(Object o) {
+        if (o instanceof Double d)
+            return d;
+        return Double.NaN; // JMH writes "NaN" as a string
+    }
+
+    /** Just enough of a JSON reader for result files: objects keep their key order. */
+    private static final class Json {
+        private final String s;
+        private int pos;
+
+        Json(String s) {
+            this.s = s;
+        }
+
+        Object value() {
+            skipSpace();
+            char c = s.charAt(pos);
+            switch (c) {
+                case '{' -> {
+                    Map<String, Object> m = new LinkedHashMap<>();
+                    pos++;
+                    if (peek() == '}') {
+                        pos++;
+                        return m;
+                    }
+                    do {
+                        skipSpace();
+                        String key = string();
+                        expect(':');
+                        m.put(key, value());
+                    } while (next() == ',');
+                    return m;
+                }
+                case '[' -> {
+                    List<Object> l = new ArrayList<>();
+                    pos++;
+                    if (peek() == ']') {
+                        pos++;
+                        return l;
+                    }
+                    do {
+                        l.add(value());
+                    } while (next() == ',');
+                    return l;
+                }
+                case '"' -> {
+                    return string();
+                }
+                default -> {
+                    int start = pos;
+                    while (pos < s.length() && ",}] \t\r\n".indexOf(s.charAt(pos)) < 0)
+                        pos++;
+                    String tok = s.substring(start, pos);
+                    return switch (tok) {
+                        case "true" -> Boolean.TRUE;
+                        case "false" -> Boolean.FALSE;
+                        case "null" -> null;
+                        default -> Double.parseDouble(tok);
+                    };
+                }
+            }
+        }
+
+        private String string() {
+            if (s.charAt(pos) != '"')
+                throw error("string");
+            StringBuilder sb = new StringBuilder();
+            for (pos++; s.charAt(pos) != '"'; pos++) {
+                char c = s.charAt(pos);
+                if (c == '\\') {
+                    c = s.charAt(++pos);
+                    switch (c) {
+                        case 'n' -> c = '\n';
+                        case 't' -> c = '\t';
+                        case 'u' -> {
+                            c = (char) Integer.parseInt(s.substring(pos + 1, pos + 5), 16);
+                            pos += 4;
+                        }
+                        default -> {
+                        }
+                    }
+                }
+                sb.append(c);
+            }
+            pos++;
+            return sb.toString();
+        }
+
+        private char peek() {
+            skipSpace();
+            return s.charAt(pos);
+        }
+
+        private char next() {
+            skipSpace();
+            return s.charAt(pos++);
+        }
+
+        private void expect(char c) {
+            if (next() != c)
+                throw error("'" + c + "'");
+        }
+
+        private void skipSpace() {
+            while (pos < s.length() && Character.isWhitespace(s.charAt(pos)))
+                pos++;
+        }
+
+        private IllegalArgumentException error(String expected) {
+            return new IllegalArgumentException("Bad result JSON: expected " + expected + " at offset " + pos);
+        }
+    }
+}
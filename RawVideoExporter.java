@@ -0,0 +1,199 @@
+import java.awt.Graphics2D;
+import java.awt.geom.AffineTransform;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Streams a scene to disk as uncompressed video for external encoders.
+ *
+ * Output is chosen by file extension: .y4m writes YUV4MPEG2 (4:4:4, BT.601
+ * limited range), anything else writes raw RGBA bytes.
+ *
+ * A fixed ring of frame slots sits between the render thread (producer) and
+ * the writer thread (consumer). The producer blocks when every slot is full, so
+ * a slow disk slows rendering down instead of dropping frames. Slots, their
+ * Graphics2D and the writer's direct buffer are all allocated up front.
+ *
+ * Frames are the scene's logical size unless a size is given, in which case
+ * the scene is scaled to fit and rasterized at that resolution.
+ *
+ * Usage: java RawVideoExporter scene out.y4m|out.rgba [seconds=10] [fps=60] [ring=8] [seed=23] [size=600x600]
+ */
+public class RawVideoExporter {
+
+    private static final int WRITE_BUFFER_BYTES = 8 << 20;
+    private static final byte[] Y4M_FRAME = "FRAME\n".getBytes(StandardCharsets.US_ASCII);
+
+    /** One preallocated frame in the ring. */
+    private static final class Slot {
+        final BufferedImage img;
+        final int[] argb;
+        final Graphics2D g;
+        final AffineTransform identity;
+
+        Slot(int w, int h) {
+            img = new BufferedImage(w, h, BufferedImage.TYPE_INT_ARGB);
+            argb = ((DataBufferInt) img.getRaster().getDataBuffer()).getData();
+            g = img.createGraphics();
+            identity = g.getTransform();
+        }
+    }
+
+    private final OfflineScene scene;
+    private final Path out;
+    private final boolean y4m;
+    private final SimulationClock clock;
+    private final int fps;
+    private final int width, height;
+    private final BlockingQueue<Slot> free, full;
+    private final Slot endOfStream = new Slot(1, 1);
+    private volatile Throwable writerError;
+    private int stalls; // frames where the producer had to wait for the writer
+
+    /** The scene must be driven by `clock`, a fixed-step clock of 1/fps. */
+    public RawVideoExporter(OfflineScene scene, SimulationClock clock, Path out, int ringSize) {
+        this(scene, clock, out, ringSize, scene.frameWidth(), scene.frameHeight());
+    }
+
+    /** Frames of width x height pixels instead of the scene's logical size. */
+    public RawVideoExporter(OfflineScene scene, SimulationClock clock, Path out, int ringSize, int width, int height) {
+        this.scene = scene;
+        this.clock = clock;
+        this.out = out;
+        this.fps = (int) Math.round(1.0 / clock.dt());
+        this.y4m = out.toString().toLowerCase().endsWith(".y4m");
+        this.width = width;
+        this.height = height;
+        this.free = new ArrayBlockingQueue<>(ringSize);
+        this.full = new ArrayBlockingQueue<>(ringSize + 1);
+        for (int i = 0; i < ringSize; i++)
+            free.add(new Slot(width, height));
+    }
+
+    public static void main(String[] args) throws Exception {
+        System.setProperty("java.awt.headless", "true");
+        if (args.length < 2) {
+            System.err.println("Usage: java RawVideoExporter <fps|ball|pit|crowd|drawkomodo|komodo> <out.y4m|out.rgba> [seconds=10] [fps=60] [ring=8] [seed=23] [WxH]");
+            System.exit(2);
+        }
+        double seconds = (args.length > 2) ? Double.parseDouble(args[2]) : 10.0;
+        int fps = (args.length > 3) ? Integer.parseInt(args[3]) : 60;
+        int ring = (args.length > 4) ? Integer.parseInt(args[4]) : 8;
+        long seed = (args.length > 5) ? Long.parseLong(args[5]) : FPS_Coding.DEFAULT_SEED;
+
+        SimulationClock clock = SimulationClock.fixedStep(1.0 / fps);
+        OfflineScene scene = OfflineScene.create(args[0], clock, seed);
+        int[] size = (args.length > 6) ? OfflineRenderer.parseSize(args[6])
+                : new int[] { scene.frameWidth(), scene.frameHeight() };
+        RawVideoExporter exporter = new RawVideoExporter(scene, clock, Paths.get(args[1]), ring, size[0], size[1]);
+        int frames = (int) Math.round(seconds * fps);
+        long start = System.nanoTime();
+        exporter.export(frames);
+        double took = (System.nanoTime() - start) / 1e9;
+        System.out.printf("%s: %d frames in %.2f s (%.1f frames/s, %d writer stalls)%n",
+                args[1], frames, took, frames / took, exporter.stalls);
+    }
+
+    /** Render and write `frames` frames, ticking the clock between them. */
+    public void export(int frames) throws IOException, InterruptedException {
+        Thread writer = new Thread(this::writeLoop, "RawVideoExporter-Writer");
+        writer.start();
+        try {
+            for (int i = 0; i < frames && writerError == null; i++) {
+                Slot slot = free.poll();
+                if (slot == null) {
+                    stalls++;
+                    slot = free.take();
+                }
+                slot.g.setTransform(slot.identity);
+                slot.g.setClip(null);
+                scene.renderFrame(slot.g, width, height);
+                scene.step(clock.tick());
+                full.put(slot);
+            }
+        } finally {
+            full.put(endOfStream);
+            writer.join();
+        }
+        if (writerError != null)
+            throw new IOException("Writing " + out + " failed", writerError);
+    }
+
+    private void writeLoop() {
+        int pixels = width * height;
+        int frameBytes = y4m ? Y4M_FRAME.length + 3 * pixels : 4 * pixels;
+        ByteBuffer buf = ByteBuffer.allocateDirect(Math.max(frameBytes, WRITE_BUFFER_BYTES));
+
+        try (FileChannel ch = FileChannel.open(out, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            if (y4m) {
+                String header = "YUV4MPEG2 W" + width + " H" + height + " F" + fps + ":1 Ip A1:1 C444 XCOLORRANGE=LIMITED\n";
+                buf.put(header.getBytes(StandardCharsets.US_ASCII));
+            }
+            for (Slot slot = full.take(); slot != endOfStream; slot = full.take()) {
+                try {
+                    if (writerError == null) {
+                        if (buf.remaining() < frameBytes)
+                            flush(ch, buf);
+                        if (y4m)
+                            putY4mFrame(buf, slot.argb);
+                        else
+                            putRgbaFrame(buf, slot.argb);
+                    }
+                } catch (IOException | RuntimeException e) {
+                    writerError = e; // keep draining so the producer never blocks on a dead writer
+                } finally {
+                    free.put(slot);
+                }
+            }
+            if (writerError == null)
+                flush(ch, buf);
+        } catch (IOException e) {
+            if (writerError == null)
+                writerError = e;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            writerError = e;
+        }
+    }
+
+    private static void flush(FileChannel ch, ByteBuffer buf) throws IOException {
+        buf.flip();
+        while (buf.hasRemaining())
+            ch.write(buf);
+        buf.clear();
+    }
+
+    private static void putRgbaFrame(ByteBuffer buf, int[] argb) {
+        for (int p : argb) {
+            buf.put((byte) (p >>> 16));
+            buf.put((byte) (p >>> 8));
+            buf.put((byte) p);
+            buf.put((byte) (p >>> 24));
+        }
+    }
+
+    // Planar Y, U, V at full resolution (C444), integer BT.601 limited-range coefficients
+    private static void putY4mFrame(ByteBuffer buf, int[] argb) {
+        buf.put(Y4M_FRAME);
+        int n = argb.length;
+        int yBase = buf.position(), uBase = yBase + n, vBase = uBase + n;
+        for (int i = 0; i < n; i++) {
+            int p = argb[i];
+            int r = (p >>> 16) & 0xFF, g = (p >>> 8) & 0xFF, b = p & 0xFF;
+            buf.put(yBase + i, (byte) (((66 * r + 129 * g + 25 * b + 128) >> 8) + 16));
+            buf.put(uBase + i, (byte) (((-38 * r - 74 * g + 112 * b + 128) >> 8) + 128));
+            buf.put(vBase + i, (byte) (((112 * r - 94 * g - 18 * b + 128) >> 8) + 128));
+        }
+        buf.position(vBase + n);
+    }
+}
@@ -0,0 +1,66 @@
+/**
+ * Time source for the scenes.
+ *
+ * A real-time clock measures the wall clock between ticks, like the old
+ * System.currentTimeMillis loops did. A fixed-step clock advances by the same
+ * dt every tick, so frame N always lands on time N * dt and a seeded scene
+ * produces the same frame N on any machine, in any process.
+ */
+public final class SimulationClock {
+
+    private final double fixedDt; // <= 0 means real time
+    private long lastNanos = -1;
+    private long frame = 0;
+    private double time = 0.0;
+
+    private SimulationClock(double fixedDt) {
+        this.fixedDt = fixedDt;
+    }
+
+    public static SimulationClock realTime() {
+        return new SimulationClock(0);
+    }
+
+    public static SimulationClock fixedStep(double dt) {
+        if (!(dt > 0))
+            throw new IllegalArgumentException("dt must be > 0: " + dt);
+        return new SimulationClock(dt);
+    }
+
+    /** Advance one tick and return its length in seconds (0 for the first real-time tick). */
+    public double tick() {
+        double dt;
+        if (fixedDt > 0) {
+            dt = fixedDt;
+            time = (frame + 1) * fixedDt; // no drift from summing dt
+        } else {
+            long now = System.nanoTime();
+            dt = (lastNanos < 0) ? 0.0 : (now - lastNanos) / 1e9;
+            lastNanos = now;
+            time += dt;
+        }
+        frame++;
+        return dt;
+    }
+
+    /** Seconds since the clock started. */
+    public double time() {
+        return time;
+    }
+
+    /** Number of ticks so far. */
+    public long frame() {
+        return frame;
+    }
+
+    public boolean isFixedStep() {
+        return fixedDt > 0;
+    }
+
+    /** Step length of a fixed-step clock. */
+    public double dt() {
+        if (fixedDt <= 0)
+            throw new IllegalStateException("Real-time clock has no fixed dt");
+        return fixedDt;
+    }
+}
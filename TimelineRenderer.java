@@ -0,0 +1,109 @@
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import merge_animation.Assignment1_66050176_66050356;
+
+/**
+ * Offline version of the merged show (merge_animation.Assignment1_66050176_66050356):
+ * FPS_Coding for DUR_FPS_MS, then BallDrop for DUR_BALL_MS, then DrawKomodo,
+ * which runs for ever in the window and for `komodoSeconds` here.
+ *
+ * Each scene starts from its own first frame when its card is shown, so the
+ * three segments do not depend on each other. They are rendered concurrently,
+ * one worker per segment sharing a PNG encoder pool, and every segment writes
+ * its frames at its global offset, so the output is one continuous
+ * frame_NNNNNN.png sequence and the wall time is that of the slowest segment.
+ *
+ * Compile together with the merged class:
+ * javac -encoding UTF-8 -d out *.java merge_animation/*.java
+ *
+ * Usage: java TimelineRenderer outDir [fps=60] [komodoSeconds=4] [threads=cores] [seed=23] [size=600x600]
+ */
+public class TimelineRenderer {
+
+    /** One part of the show: a scene and the global frames it covers. */
+    public record Segment(String scene, int firstFrame, int frames) {
+    }
+
+    public static void main(String[] args) throws Exception {
+        System.setProperty("java.awt.headless", "true");
+        if (args.length < 1) {
+            System.err.println("Usage: java TimelineRenderer <outDir> [fps=60] [komodoSeconds=4] [threads] [seed=23] [WxH]");
+            System.exit(2);
+        }
+        File outDir = new File(args[0]);
+        int fps = (args.length > 1) ? Integer.parseInt(args[1]) : 60;
+        double komodoSeconds = (args.length > 2) ? Double.parseDouble(args[2]) : 4.0;
+        int threads = (args.length > 3) ? Integer.parseInt(args[3]) : Runtime.getRuntime().availableProcessors();
+        long seed = (args.length > 4) ? Long.parseLong(args[4]) : FPS_Coding.DEFAULT_SEED;
+        int[] size = (args.length > 5) ? OfflineRenderer.parseSize(args[5]) : null;
+
+        List<Segment> timeline = timeline(fps, komodoSeconds);
+        long start = System.nanoTime();
+        render(timeline, fps, seed, size, outDir, threads);
+        double took = (System.nanoTime() - start) / 1e9;
+        Segment last = timeline.get(timeline.size() - 1);
+        int total = last.firstFrame() + last.frames();
+        System.out.printf("timeline: %d frames in %.2f s (%.1f frames/s)%n", total, took, total / took);
+    }
+
+    /** The merged show's segments at `fps`, with durations from the merged class. */
+    public static List<Segment> timeline(int fps, double komodoSeconds) {
+        int fpsFrames = framesOf(Assignment1_66050176_66050356.DUR_FPS_MS / 1000.0, fps);
+        int ballFrames = framesOf(Assignment1_66050176_66050356.DUR_BALL_MS / 1000.0, fps);
+        int komodoFrames = framesOf(komodoSeconds, fps);
+        return List.of(
+                new Segment("fps", 0, fpsFrames),
+                new Segment("ball", fpsFrames, ballFrames),
+                new Segment("drawkomodo", fpsFrames + ballFrames, komodoFrames));
+    }
+
+    private static int framesOf(double seconds, int fps) {
+        return (int) Math.round(seconds * fps);
+    }
+
+    /**
+     * Render every segment concurrently into outDir. `size` is {width, height},
+     * or null for each scene's logical size. Blocks until all frames are written.
+     */
+    public static void render(List<Segment> timeline, int fps, long seed, int[] size, File outDir, int threads)
+            throws IOException, InterruptedException {
+        ExecutorService encoders = Executors.newFixedThreadPool(threads);
+        ExecutorService workers = Executors.newFixedThreadPool(timeline.size());
+        try {
+            List<Future<?>> parts = new ArrayList<>();
+            for (Segment seg : timeline) {
+                parts.add(workers.submit(() -> {
+                    SimulationClock clock = SimulationClock.fixedStep(1.0 / fps);
+                    OfflineScene scene = OfflineScene.create(seg.scene(), clock, seed);
+                    int w = (size != null) ? size[0] : scene.frameWidth();
+                    int h = (size != null) ? size[1] : scene.frameHeight();
+                    OfflineRenderer.renderSequence(scene, clock, seg.firstFrame(), seg.frames(), w, h, outDir,
+                            encoders, 2 * threads);
+                    return null;
+                }));
+            }
+            for (Future<?> f : parts) {
+                try {
+                    f.get();
+                } catch (ExecutionException e) {
+                    for (Future<?> other : parts)
+                        other.cancel(true);
+                    Throwable cause = e.getCause();
+                    if (cause instanceof IOException io)
+                        throw io;
+                    throw new IOException("Rendering the timeline failed", cause);
+                }
+            }
+        } finally {
+            workers.shutdownNow();
+            encoders.shutdown();
+        }
+    }
+}
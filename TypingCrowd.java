@@ -0,0 +1,372 @@
+import javax.swing.*;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * An office floor of typists scrolling past, each at its own desk and keyboard,
+ * typing its own tap pattern at its own speed (FPS_Coding's hands, many times
+ * over and at a third of the size).
+ *
+ * Nothing is an object per typist or per finger. Finger state lives in flat
+ * arrays indexed typist * 10 + hand * 5 + finger (thumb, index, middle, ring,
+ * pinky), and step() is one loop over the typists for their taps and one over
+ * every finger for the press. A press is FPS_Coding's critically damped return,
+ * evaluated in closed form from the time since the tap, so no spring has to be
+ * integrated.
+ *
+ * Drawing costs the same for every typist: the desk, monitor and keyboard are
+ * one baked sprite, each hand (shadow, palm, sleeve) another, and a finger is
+ * picked from a table of capsule sprites indexed by (finger, key, press level),
+ * all baked at the target's detail factor. Only the rows on screen are drawn,
+ * but every typist keeps typing.
+ *
+ * Usage: java TypingCrowd [typists=384]
+ */
+public class TypingCrowd extends JPanel implements Runnable, OfflineScene {
+
+    static final int W = 600, H = 600;
+    public static final int DEFAULT_TYPISTS = 384;
+
+    //One typist's cell in logical px; the floor is COLUMNS cells wide and scrolls up forever
+    private static final int CELL_W = 100, CELL_H = 90, COLUMNS = W / CELL_W;
+    private static final double SCROLL_SPEED = 24; //px/s
+
+    private static final Color FLOOR_COLOR = Palette.rgb(214, 208, 198);
+    private static final Color DESK_COLOR = Palette.rgb(194, 180, 160);
+    private static final Color POST_COLOR = Palette.rgb(85, 90, 110);
+    private static final Color BEZEL_COLOR = Palette.rgb(58, 62, 78);
+    private static final Color SCREEN_BG = Palette.rgb(24, 36, 70);
+    private static final Color CODE_COLOR = Palette.rgba(180, 230, 255, 170);
+    private static final Color KEYBOARD_COLOR = Palette.rgb(72, 78, 95);
+    private static final Color KEY_COLOR = Palette.rgb(200, 208, 224);
+    private static final Color SKIN_COLOR = Palette.rgb(255, 220, 190);
+    private static final Color SKIN_SHADE = Palette.rgb(240, 200, 170);
+    private static final Color SHADOW_COLOR = Palette.rgba(0, 0, 0, 40);
+    private static final Color[] SHIRTS = { Palette.rgb(35, 95, 165), Palette.rgb(165, 60, 60),
+            Palette.rgb(60, 130, 80), Palette.rgb(90, 90, 100) };
+    private static final int MONITORS = 4; //baked desk variants, each with different code on screen
+
+    /* ========================= Keyboard (cell coordinates) ========================= */
+
+    private static final int KEY_ROWS = 3, KEY_COLS = 10, KEY = 6, KEY_STEP = 7;
+    private static final double[] STAGGER = { 0, 1.5, 3 };
+    private static final int KB_X = 14, KB_Y = 44, KB_W = 72, KB_H = 34;
+    private static final int SPACE_X = 34, SPACE_Y = 68, SPACE_W = 32;
+
+    //Key centres: the letter keys that fit, then the space bar (last)
+    private final float[] keyX, keyY;
+    private final int[] keyHand, keyFinger; //which finger of which hand types each key
+    private final int space;
+
+    /* ========================= Hands (relative to each hand's anchor) ========================= */
+
+    private static final float[] ANCHOR_X = { 34.5f, 67.5f }, ANCHOR_Y = { 66, 66 };
+    //Left hand knuckles; the right hand mirrors x. Thumb, index, middle, ring, pinky.
+    private static final float[] BASE_X = { 9.6f, 4.5f, -0.6f, -5.7f, -10.8f };
+    private static final float[] BASE_Y = { -0.6f, -3f, -3.9f, -2.4f, -0.9f };
+    private static final float[] LENGTH = { 10, 14, 15, 14, 12 };
+    private static final float[] RADIUS = { 2.3f, 2f, 2f, 2f, 1.8f };
+    private static final float[] CURL = { 2.4f, 3.6f, 3.6f, 3.6f, 3.6f };
+    private static final int FINGERS = 10;
+
+    //Press after a tap: x(a) = (1 + w a) e^(-w a), the critically damped return FPS_Coding.Finger uses
+    private static final double PRESS_OMEGA = 14;
+    private static final double NEVER = 1e3; //age of a finger that has not tapped yet (press 0)
+    private static final int LEVELS = 8; //press levels with their own finger sprite
+
+    /* ========================= Typists ========================= */
+
+    private final int typists;
+    private final int[] shirt, monitor;
+    private final double[] tapTick, tapInterval;
+    private final int[] patStart, patLen, patIndex;
+    private final int[] patKey; //every typist's pattern back to back
+
+    //Per finger (typist * FINGERS + hand * 5 + finger)
+    private final double[] pressAge;
+    private final float[] press;
+    private final int[] pressKey; //key of the last tap, -1 before the first
+
+    private volatile boolean running = true;
+    private double t = 0;
+    private final SimulationClock clock;
+
+    public static void main(String[] args) {
+        int n = (args.length > 0) ? Integer.parseInt(args[0]) : DEFAULT_TYPISTS;
+        SwingUtilities.invokeLater(() -> {
+            TypingCrowd panel = new TypingCrowd(SimulationClock.realTime(), n, FPS_Coding.DEFAULT_SEED);
+            JFrame f = new JFrame("Typing crowd (" + n + " typists)");
+            f.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
+            f.setContentPane(panel);
+            f.pack();
+            f.setLocationRelativeTo(null);
+            f.setVisible(true);
+            new Thread(panel).start();
+        });
+    }
+
+    /** `typists` desks (rounded up to whole rows); seed picks every pattern, speed and shirt. */
+    public TypingCrowd(SimulationClock clock, int typists, long seed) {
+        if (typists < 1)
+            throw new IllegalArgumentException("typists must be >= 1: " + typists);
+        this.clock = clock;
+        this.typists = (typists + COLUMNS - 1) / COLUMNS * COLUMNS;
+        setPreferredSize(new Dimension(W, H));
+        setBackground(FLOOR_COLOR);
+
+        int keys = 0;
+        float[] kx = new float[KEY_ROWS * KEY_COLS + 1], ky = new float[kx.length];
+        int[] kh = new int[kx.length], kf = new int[kx.length];
+        for (int r = 0; r < KEY_ROWS; r++)
+            for (int c = 0; c < KEY_COLS; c++) {
+                double x = KB_X + 1 + c * KEY_STEP + STAGGER[r];
+                if (x + KEY > KB_X + KB_W)
+                    continue;
+                kx[keys] = (float) (x + KEY / 2.0);
+                ky[keys] = KB_Y + 3 + r * KEY_STEP + KEY / 2f;
+                kh[keys] = (c < KEY_COLS / 2) ? 0 : 1;
+                //pinky, ring, middle, index, index | index, index, middle, ring, pinky
+                kf[keys] = switch (c) {
+                    case 0, 9 -> 4;
+                    case 1, 8 -> 3;
+                    case 2, 7 -> 2;
+                    default -> 1;
+                };
+                keys++;
+            }
+        space = keys;
+        kx[keys] = SPACE_X + SPACE_W / 2f;
+        ky[keys] = SPACE_Y + KEY / 2f;
+        kh[keys] = 1;
+        kf[keys] = 0;
+        keys++;
+        keyX = Arrays.copyOf(kx, keys);
+        keyY = Arrays.copyOf(ky, keys);
+        keyHand = Arrays.copyOf(kh, keys);
+        keyFinger = Arrays.copyOf(kf, keys);
+
+        int n = this.typists;
+        Random rnd = new Random(seed);
+        shirt = new int[n];
+        monitor = new int[n];
+        tapTick = new double[n];
+        tapInterval = new double[n];
+        patStart = new int[n];
+        patLen = new int[n];
+        patIndex = new int[n];
+        int[] pat = new int[n * 16];
+        int total = 0;
+        for (int i = 0; i < n; i++) {
+            shirt[i] = rnd.nextInt(SHIRTS.length);
+            monitor[i] = rnd.nextInt(MONITORS);
+            tapInterval[i] = 0.07 + 0.09 * rnd.nextDouble();
+            tapTick[i] = rnd.nextDouble() * tapInterval[i]; //out of step with each other
+            patStart[i] = total;
+            patLen[i] = 6 + rnd.nextInt(11);
+            for (int k = 0; k < patLen[i]; k++)
+                pat[total++] = (rnd.nextInt(7) == 0) ? space : rnd.nextInt(space);
+        }
+        patKey = Arrays.copyOf(pat, total);
+
+        pressAge = new double[n * FINGERS];
+        press = new float[n * FINGERS];
+        pressKey = new int[n * FINGERS];
+        Arrays.fill(pressAge, NEVER);
+        Arrays.fill(pressKey, -1);
+    }
+
+    /* ========================= Loop ========================= */
+
+    @Override
+    public void run() {
+        while (running) {
+            step(clock.tick());
+            repaint();
+            try {
+                Thread.sleep(1);
+            } catch (InterruptedException ignored) {
+            }
+        }
+    }
+
+    @Override
+    public void step(double dt) {
+        t += dt;
+        final double[] age = pressAge;
+        for (int f = 0; f < age.length; f++)
+            age[f] += dt;
+
+        //Taps: a finger that taps now gets the time since its tap as age, so long frames keep the rhythm
+        for (int i = 0; i < typists; i++) {
+            double tick = tapTick[i] + dt, interval = tapInterval[i];
+            while (tick >= interval) {
+                tick -= interval;
+                int key = patKey[patStart[i] + patIndex[i]];
+                if (++patIndex[i] == patLen[i])
+                    patIndex[i] = 0;
+                int f = i * FINGERS + keyHand[key] * 5 + keyFinger[key];
+                age[f] = tick;
+                pressKey[f] = key;
+            }
+            tapTick[i] = tick;
+        }
+
+        final float[] p = press;
+        for (int f = 0; f < age.length; f++) {
+            double wa = PRESS_OMEGA * age[f];
+            p[f] = (float) ((1 + wa) * Math.exp(-wa));
+        }
+    }
+
+    public int typists() {
+        return typists;
+    }
+
+    /** Press of finger `finger` (0 thumb .. 4 pinky) of `hand` (0 left, 1 right) of typist i, 0..1. */
+    public float press(int i, int hand, int finger) {
+        return press[i * FINGERS + hand * 5 + finger];
+    }
+
+    /* ========================= Drawing ========================= */
+
+    @Override
+    public void renderFrame(Graphics2D g, int width, int height) {
+        Graphics2D gg = OfflineScene.letterbox(g, width, height, W, H);
+        paintComponent(gg);
+        gg.dispose();
+    }
+
+    @Override
+    public int frameWidth() {
+        return W;
+    }
+
+    @Override
+    public int frameHeight() {
+        return H;
+    }
+
+    //Sprites baked at `detail` device px per logical px (rebuilt when it changes)
+    private int detail;
+    private BufferedImage[] desks;
+    private BufferedImage[] hands; //[shirt * 2 + hand]
+    private int handOX, handOY; //anchor inside a hand sprite (device px)
+    //Finger capsules, kept only here (not in FPS_Coding's shared cache): [(hand * 5 + finger) * keys + key) * LEVELS + level], lazy
+    private FPS_Coding.CapsuleSprite[] fingerSprites;
+    private final int[] knuckleX = new int[FINGERS], knuckleY = new int[FINGERS]; //in the cell, device px
+
+    @Override
+    protected void paintComponent(Graphics g) {
+        Graphics2D g2 = (Graphics2D) g.create();
+        int k = OfflineScene.detailOf(g2);
+        if (k != detail)
+            bake(k);
+        g2.setColor(FLOOR_COLOR);
+        g2.fillRect(0, 0, W, H);
+        g2.scale(1.0 / k, 1.0 / k); //device px from here on
+
+        int rows = typists / COLUMNS;
+        double camY = (t * SCROLL_SPEED) % ((double) rows * CELL_H);
+        int first = (int) Math.floor(camY / CELL_H);
+        for (int r = first; (r * (double) CELL_H - camY) < H; r++) {
+            int row = r % rows, y = (int) Math.round((r * (double) CELL_H - camY) * k);
+            for (int c = 0; c < COLUMNS; c++)
+                drawTypist(g2, row * COLUMNS + c, c * CELL_W * k, y);
+        }
+        g2.dispose();
+    }
+
+    private void drawTypist(Graphics2D g2, int i, int x, int y) {
+        g2.drawImage(desks[monitor[i]], x, y, null);
+        for (int hand = 0; hand < 2; hand++) {
+            int ax = x + Math.round(ANCHOR_X[hand] * detail), ay = y + Math.round(ANCHOR_Y[hand] * detail);
+            g2.drawImage(hands[shirt[i] * 2 + hand], ax - handOX, ay - handOY, null);
+            for (int f = hand * 5 + 4; f >= hand * 5; f--) { //pinky first, thumb on top
+                int slot = i * FINGERS + f;
+                int level = Math.min(LEVELS - 1, Math.round(press[slot] * (LEVELS - 1)));
+                int key = pressKey[slot];
+                FPS_Coding.CapsuleSprite s = finger(f, level == 0 ? 0 : key, level);
+                s.draw(g2, x + knuckleX[f], y + knuckleY[f]);
+            }
+        }
+    }
+
+    //Capsule of finger f pressed `level` towards key (any key at level 0: the finger at rest)
+    private FPS_Coding.CapsuleSprite finger(int f, int key, int level) {
+        int idx = (f * keyX.length + key) * LEVELS + level;
+        FPS_Coding.CapsuleSprite s = fingerSprites[idx];
+        if (s == null) {
+            int hand = f / 5, n = f % 5;
+            float jx = ANCHOR_X[hand] + (hand == 0 ? BASE_X[n] : -BASE_X[n]), jy = ANCHOR_Y[hand] + BASE_Y[n];
+            float p = level / (float) (LEVELS - 1);
+            float dx = (keyX[key] - jx) * p * 0.28f;
+            float dy = -(LENGTH[n] - CURL[n]) + (keyY[key] - jy) * p * 0.28f + 1.8f * p;
+            s = FPS_Coding.CapsuleSprite.build(dx * detail, dy * detail, RADIUS[n] * detail);
+            fingerSprites[idx] = s;
+        }
+        return s;
+    }
+
+    private void bake(int k) {
+        detail = k;
+        Random rnd = new Random(MONITORS);
+        desks = new BufferedImage[MONITORS];
+        for (int m = 0; m < MONITORS; m++)
+            desks[m] = bakeDesk(k, rnd);
+        hands = new BufferedImage[SHIRTS.length * 2];
+        for (int s = 0; s < SHIRTS.length; s++)
+            for (int hand = 0; hand < 2; hand++)
+                hands[s * 2 + hand] = bakeHand(k, SHIRTS[s]);
+        handOX = 13 * k;
+        handOY = 10 * k;
+        fingerSprites = new FPS_Coding.CapsuleSprite[FINGERS * keyX.length * LEVELS];
+        for (int f = 0; f < FINGERS; f++) {
+            int hand = f / 5, n = f % 5;
+            knuckleX[f] = Math.round((ANCHOR_X[hand] + (hand == 0 ? BASE_X[n] : -BASE_X[n])) * k);
+            knuckleY[f] = Math.round((ANCHOR_Y[hand] + BASE_Y[n]) * k);
+        }
+    }
+
+    //Desk, monitor with a few lines of "code" and the keyboard of one cell
+    private BufferedImage bakeDesk(int k, Random rnd) {
+        BufferedImage img = new BufferedImage(CELL_W * k, CELL_H * k, BufferedImage.TYPE_INT_ARGB_PRE);
+        Graphics2D g = FPS_Coding.Sprite.begin(img);
+        fillRound(g, k, DESK_COLOR, 2, 16, 96, 66, 6);
+        fillRound(g, k, POST_COLOR, 46, 26, 8, 10, 2);
+        fillRound(g, k, BEZEL_COLOR, 24, 4, 52, 26, 4);
+        fillRound(g, k, SCREEN_BG, 27, 7, 46, 20, 3);
+        g.setColor(CODE_COLOR);
+        for (int line = 0; line < 4; line++) {
+            int x = 29 + rnd.nextInt(8), w = 8 + rnd.nextInt(28);
+            g.fillRect(x * k, (10 + 4 * line) * k, Math.min(w, 71 - x) * k, k);
+        }
+        fillRound(g, k, KEYBOARD_COLOR, KB_X, KB_Y, KB_W, KB_H, 5);
+        for (int key = 0; key < keyX.length; key++) {
+            int w = (key == space) ? SPACE_W : KEY;
+            fillRound(g, k, KEY_COLOR, Math.round(keyX[key] - w / 2f), Math.round(keyY[key] - KEY / 2f), w, KEY, 2);
+        }
+        g.dispose();
+        return img;
+    }
+
+    //Shadow, palm and sleeve of one hand, anchor at (13, 10) logical px
+    private static BufferedImage bakeHand(int k, Color sleeve) {
+        BufferedImage img = new BufferedImage(26 * k, 34 * k, BufferedImage.TYPE_INT_ARGB_PRE);
+        Graphics2D g = FPS_Coding.Sprite.begin(img);
+        g.setColor(SHADOW_COLOR);
+        FPS_Coding.fillEllipsePoly(g, 13 * k, 18 * k, 9 * k, 3 * k, 36);
+        g.setPaint(new GradientPaint(0, 1.5f * k, SKIN_COLOR, 0, 18.5f * k, SKIN_SHADE));
+        g.fillPolygon(FPS_Coding.roundRectPolygon(2 * k, 2 * k, 22 * k, 17 * k, 7 * k, 4 * k));
+        g.setColor(sleeve);
+        g.fillRect(k, 17 * k, 24 * k, 16 * k);
+        g.dispose();
+        return img;
+    }
+
+    private static void fillRound(Graphics2D g, int k, Color c, int x, int y, int w, int h, int r) {
+        g.setColor(c);
+        g.fillPolygon(FPS_Coding.roundRectPolygon(x * k, y * k, w * k, h * k, r * k, 4 * k));
+    }
+}
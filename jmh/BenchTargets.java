@@ -0,0 +1,242 @@
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.Polygon;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.util.Random;
+import java.util.function.LongSupplier;
+
+import bench.Targets;
+
+/** The benchmark fixtures, built from the scene classes (see bench.Targets). */
+public final class BenchTargets implements Targets {
+
+    private static final int CANVAS = 1024;
+
+    //Pixel sink over a canvas: counts plots, so the work leaves a trace
+    private static KomodoDrawing.PixelSink counter(int[] canvas) {
+        return (x, y) -> {
+            if (x >= 0 && x < CANVAS && y >= 0 && y < CANVAS)
+                canvas[y * CANVAS + x]++;
+        };
+    }
+
+    private static Graphics2D canvasGraphics() {
+        BufferedImage img = new BufferedImage(CANVAS, CANVAS, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = img.createGraphics();
+        g.setColor(Color.BLACK);
+        return g;
+    }
+
+    @Override
+    public LongSupplier bresenhamLine(int dx, int dy) {
+        int[] canvas = new int[CANVAS * CANVAS];
+        KomodoDrawing.PixelSink pixels = counter(canvas);
+        return () -> {
+            KomodoDrawing.bresenhamLine(pixels, 8, 8, 8 + dx, 8 + dy);
+            return canvas[8 * CANVAS + 8];
+        };
+    }
+
+    @Override
+    public LongSupplier bresenhamLinePlot3x3(int dx, int dy) {
+        BallDrop ball = new BallDrop(SimulationClock.fixedStep(1.0 / 60));
+        Graphics2D g = canvasGraphics();
+        return () -> {
+            ball.bresenhamLine(g, 8, 8, 8 + dx, 8 + dy);
+            return dx;
+        };
+    }
+
+    @Override
+    public LongSupplier midpointCircle(int r) {
+        int[] canvas = new int[CANVAS * CANVAS];
+        KomodoDrawing.PixelSink pixels = counter(canvas);
+        return () -> {
+            KomodoDrawing.midpointCircle(pixels, 512, 512, r);
+            return canvas[512 * CANVAS + 512 + r];
+        };
+    }
+
+    @Override
+    public LongSupplier fillMidpointCircle(int r) {
+        BallDrop ball = new BallDrop(SimulationClock.fixedStep(1.0 / 60));
+        Graphics2D g = canvasGraphics();
+        return () -> {
+            ball.fillMidpointCircle(g, 300, 300, r);
+            return r;
+        };
+    }
+
+    @Override
+    public LongSupplier midpointEllipse(int a, int b) {
+        int[] canvas = new int[CANVAS * CANVAS];
+        KomodoDrawing.PixelSink pixels = counter(canvas);
+        return () -> {
+            KomodoDrawing.midpointEllipse(pixels, 512, 512, a, b);
+            return canvas[512 * CANVAS + 512 + a];
+        };
+    }
+
+    // A closed midpoint circle is the kind of region the BallDrop halves and the Komodo body are
+    @Override
+    public LongSupplier floodFill(int r) {
+        KomodoDrawing komodo = new KomodoDrawing();
+        BufferedImage region = new BufferedImage(2 * r + 8, 2 * r + 8, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D rg = region.createGraphics();
+        rg.setColor(Color.WHITE);
+        rg.fillRect(0, 0, region.getWidth(), region.getHeight());
+        rg.setColor(Color.BLACK);
+        komodo.midpointCircle(rg, r + 4, r + 4, r);
+        rg.dispose();
+        int w = region.getWidth(), h = region.getHeight();
+        int[] pristine = region.getRGB(0, 0, w, h, null, 0, w);
+        return () -> {
+            region.setRGB(0, 0, w, h, pristine, 0, w); // reset
+            komodo.floodFill(region, r + 4, r + 4, Color.WHITE, Color.RED);
+            return region.getRGB(r + 4, r + 4);
+        };
+    }
+
+    @Override
+    public LongSupplier cubicBerzierCurve(int samples) {
+        KomodoDrawing komodo = new KomodoDrawing();
+        KomodoDrawing.Point[] cps = { komodo.new Point(112, 369), komodo.new Point(122, 356),
+                komodo.new Point(134, 350), komodo.new Point(150, 349) };
+        return () -> {
+            long s = 0;
+            for (int i = 0; i <= samples; i++)
+                s += komodo.cubicBerzierCurve(i / (double) samples, cps).x;
+            return s;
+        };
+    }
+
+    @Override
+    public LongSupplier drawCubicBezier(int steps) {
+        KomodoDrawing komodo = new KomodoDrawing();
+        Graphics2D g = canvasGraphics();
+        int[] c = { 112, 369, 122, 356, 134, 350, 150, 349 };
+        return () -> {
+            komodo.drawCubicBezier(g, c, steps);
+            return steps;
+        };
+    }
+
+    @Override
+    public LongSupplier roundRectPolygon(int seg) {
+        return () -> {
+            Polygon p = FPS_Coding.roundRectPolygon(40, 40, 520, 300, 16, seg);
+            return p.npoints;
+        };
+    }
+
+    @Override
+    public LongSupplier fillCapsulePoly(int seg) {
+        BufferedImage img = new BufferedImage(256, 256, BufferedImage.TYPE_INT_ARGB_PRE);
+        Graphics2D aa = img.createGraphics();
+        aa.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+        aa.setColor(Color.PINK);
+        return () -> {
+            FPS_Coding.fillCapsulePoly(aa, 100, 200, 130, 150, 6.7f, seg);
+            return seg;
+        };
+    }
+
+    // The pit's height and fill, with a box as wide as the count needs
+    private static BallSystem ballPit(int n, BallSystem.StepMode mode) {
+        double r = 3, gap = 2 * r + 1, h = 600, w = n * Math.PI * r * r / (0.45 * h);
+        int cols = (int) ((w - 2 * r) / gap);
+        BallSystem pit = new BallSystem(n, r, 2000, 0.7, 0.07, w, h);
+        pit.setStepMode(mode);
+        Random rnd = new Random(n);
+        for (int i = 0; i < n; i++)
+            pit.add(r + 0.5 + (i % cols) * gap, r + 1 + (i / cols) * gap, (rnd.nextDouble() - 0.5) * 600, 0);
+        return pit;
+    }
+
+    @Override
+    public LongSupplier ballPitStep(int n, String mode) {
+        BallSystem pit = ballPit(n, BallSystem.StepMode.valueOf(mode));
+        for (int i = 0; i < 180; i++)
+            pit.step(1.0 / 60);
+        return () -> {
+            pit.step(1.0 / 60);
+            return pit.count();
+        };
+    }
+
+    @Override
+    public LongSupplier settledPitStep(int n) {
+        BallSystem pit = ballPit(n, BallSystem.StepMode.PARALLEL);
+        for (int i = 0; i < 3600 && !pit.allStopped(); i++)
+            pit.step(1.0 / 60);
+        Random rnd = new Random(n);
+        int[] steps = { 0 };
+        return () -> {
+            if (steps[0]++ % 10 == 0)
+                for (int k = 0; k < 5; k++)
+                    pit.applyImpulse(rnd.nextInt(n), (rnd.nextDouble() - 0.5) * 400, -300);
+            pit.step(1.0 / 60);
+            return pit.awakeCount();
+        };
+    }
+
+    @Override
+    public LongSupplier crowdStep(int typists) {
+        TypingCrowd crowd = new TypingCrowd(SimulationClock.fixedStep(1.0 / 60), typists, FPS_Coding.DEFAULT_SEED);
+        return () -> {
+            crowd.step(1.0 / 60);
+            return crowd.typists();
+        };
+    }
+
+    private static final ParticleSystem.Emitter FOUNTAIN = new ParticleSystem.Emitter(100, 600, -Math.PI / 2, Math.PI,
+            50, 0.5, 2.0, 1.5, 800, 2, 0xFFFFC080);
+
+    @Override
+    public LongSupplier particleStep(int n) {
+        ParticleSystem ps = new ParticleSystem(n);
+        long[] seed = { n };
+        ps.emit(FOUNTAIN, 300, 300, n, seed[0]++);
+        return () -> {
+            ps.step(1.0 / 60);
+            ps.emit(FOUNTAIN, 300, 300, n - ps.count(), seed[0]++);
+            return ps.count();
+        };
+    }
+
+    @Override
+    public LongSupplier particleOverlay(int n, int size) {
+        ParticleSystem ps = new ParticleSystem(n);
+        ps.emit(FOUNTAIN, size / 2.0, size / 2.0, n, n);
+        return () -> {
+            BufferedImage o = ps.overlay(size, size, 1);
+            return o == null ? 0 : o.getRGB(size / 2, size / 2);
+        };
+    }
+
+    @Override
+    public LongSupplier paint(String scene, double atSec) {
+        SimulationClock clock = SimulationClock.fixedStep(1.0 / 60);
+        OfflineScene s = OfflineScene.create(scene, clock, FPS_Coding.DEFAULT_SEED);
+        OfflineRenderer.advanceTo(s, clock, Math.round(atSec * 60));
+        BufferedImage target = new BufferedImage(s.frameWidth(), s.frameHeight(), BufferedImage.TYPE_INT_RGB);
+        return () -> {
+            Graphics2D sg = target.createGraphics();
+            s.renderFrame(sg);
+            sg.dispose();
+            return target.getRGB(target.getWidth() / 2, target.getHeight() / 2);
+        };
+    }
+
+    @Override
+    public LongSupplier komodoRender(String raster) {
+        KomodoDrawing k = new KomodoDrawing();
+        KomodoDrawing.RasterMode mode = KomodoDrawing.RasterMode.valueOf(raster);
+        BufferedImage target = new BufferedImage(600, 600, BufferedImage.TYPE_INT_ARGB);
+        return () -> {
+            k.renderDrawing(target, mode); // the retained image's rebuild, not the blit
+            return target.getRGB(300, 380);
+        };
+    }
+}
@@ -0,0 +1,63 @@
+package bench;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/** Full paint of each scene into a frame-sized offscreen image at a representative moment. */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 200, timeUnit = TimeUnit.MILLISECONDS)
+@Measurement(iterations = 10, time = 200, timeUnit = TimeUnit.MILLISECONDS)
+@Fork(value = 2, jvmArgsAppend = "-Djava.awt.headless=true")
+public class PaintBench {
+
+    // scene@seconds: FPS_Coding while typing and after the impact, the others mid-animation
+    @State(Scope.Thread)
+    public static class Frame {
+        @Param({ "fps@2", "fps@8", "ball@1", "pit@1", "crowd@2", "drawkomodo@3" })
+        String frame;
+        LongSupplier op;
+
+        @Setup
+        public void setup() {
+            int at = frame.indexOf('@');
+            op = Targets.load().paint(frame.substring(0, at), Double.parseDouble(frame.substring(at + 1)));
+        }
+    }
+
+    // KomodoDrawing paints a retained image; what costs is rebuilding it, with either raster backend
+    @State(Scope.Thread)
+    public static class Komodo {
+        @Param({ "SEQUENTIAL", "TILED" })
+        String raster;
+        LongSupplier op;
+
+        @Setup
+        public void setup() {
+            op = Targets.load().komodoRender(raster);
+        }
+    }
+
+    @Benchmark
+    public void paint(Frame s, Blackhole bh) {
+        bh.consume(s.op.getAsLong());
+    }
+
+    @Benchmark
+    public void komodoRender(Komodo s, Blackhole bh) {
+        bh.consume(s.op.getAsLong());
+    }
+}
@@ -0,0 +1,202 @@
+package bench;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/** The rasterization primitives: lines, circles, ellipses, flood fill, Bezier curves and the FPS polygons. */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 200, timeUnit = TimeUnit.MILLISECONDS)
+@Measurement(iterations = 10, time = 200, timeUnit = TimeUnit.MILLISECONDS)
+@Fork(value = 2, jvmArgsAppend = "-Djava.awt.headless=true")
+public class RasterBench {
+
+    // Bresenham: the slope decides which axis steps every iteration
+    @State(Scope.Thread)
+    public static class Line {
+        @Param({ "shallow", "diagonal", "steep" })
+        String slope;
+        @Param({ "16", "128", "512" })
+        int length;
+        LongSupplier op;
+
+        @Setup
+        public void setup() {
+            int dx = slope.equals("steep") ? length / 4 : length, dy = slope.equals("shallow") ? length / 4 : length;
+            op = Targets.load().bresenhamLine(dx, dy);
+        }
+    }
+
+    // BallDrop's line, which plots a 3x3 square per point through Graphics
+    @State(Scope.Thread)
+    public static class ThickLine {
+        @Param({ "128" })
+        int length;
+        LongSupplier op;
+
+        @Setup
+        public void setup() {
+            op = Targets.load().bresenhamLinePlot3x3(length, length / 2);
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Circle {
+        @Param({ "4", "32", "256" })
+        int radius;
+        LongSupplier op;
+
+        @Setup
+        public void setup() {
+            op = Targets.load().midpointCircle(radius);
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class FilledCircle {
+        @Param({ "16", "64", "256" })
+        int radius;
+        LongSupplier op;
+
+        @Setup
+        public void setup() {
+            op = Targets.load().fillMidpointCircle(radius);
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Ellipse {
+        @Param({ "8x4", "64x24", "256x96" })
+        String axes;
+        LongSupplier op;
+
+        @Setup
+        public void setup() {
+            String[] ab = axes.split("x");
+            op = Targets.load().midpointEllipse(Integer.parseInt(ab[0]), Integer.parseInt(ab[1]));
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Flood {
+        @Param({ "70", "200" })
+        int radius;
+        LongSupplier op;
+
+        @Setup
+        public void setup() {
+            op = Targets.load().floodFill(radius);
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class BezierSamples {
+        @Param({ "180" })
+        int samples;
+        LongSupplier op;
+
+        @Setup
+        public void setup() {
+            op = Targets.load().cubicBerzierCurve(samples);
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class BezierStroke {
+        @Param({ "60", "180" })
+        int steps;
+        LongSupplier op;
+
+        @Setup
+        public void setup() {
+            op = Targets.load().drawCubicBezier(steps);
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class RoundRect {
+        @Param({ "6", "12" })
+        int segPerQuarter;
+        LongSupplier op;
+
+        @Setup
+        public void setup() {
+            op = Targets.load().roundRectPolygon(segPerQuarter);
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Capsule {
+        @Param({ "16" })
+        int seg;
+        LongSupplier op;
+
+        @Setup
+        public void setup() {
+            op = Targets.load().fillCapsulePoly(seg);
+        }
+    }
+
+    @Benchmark
+    public void bresenhamLine(Line s, Blackhole bh) {
+        bh.consume(s.op.getAsLong());
+    }
+
+    @Benchmark
+    public void bresenhamLinePlot3x3(ThickLine s, Blackhole bh) {
+        bh.consume(s.op.getAsLong());
+    }
+
+    @Benchmark
+    public void midpointCircle(Circle s, Blackhole bh) {
+        bh.consume(s.op.getAsLong());
+    }
+
+    @Benchmark
+    public void fillMidpointCircle(FilledCircle s, Blackhole bh) {
+        bh.consume(s.op.getAsLong());
+    }
+
+    @Benchmark
+    public void midpointEllipse(Ellipse s, Blackhole bh) {
+        bh.consume(s.op.getAsLong());
+    }
+
+    @Benchmark
+    public void floodFill(Flood s, Blackhole bh) {
+        bh.consume(s.op.getAsLong());
+    }
+
+    @Benchmark
+    public void cubicBerzierCurve(BezierSamples s, Blackhole bh) {
+        bh.consume(s.op.getAsLong());
+    }
+
+    @Benchmark
+    public void drawCubicBezier(BezierStroke s, Blackhole bh) {
+        bh.consume(s.op.getAsLong());
+    }
+
+    @Benchmark
+    public void roundRectPolygon(RoundRect s, Blackhole bh) {
+        bh.consume(s.op.getAsLong());
+    }
+
+    @Benchmark
+    public void fillCapsulePoly(Capsule s, Blackhole bh) {
+        bh.consume(s.op.getAsLong());
+    }
+}
@@ -0,0 +1,123 @@
+package bench;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * One 1/60 s simulation step: the ball pit (collisions included), the typing
+ * crowd and the particle pool, plus the particles' overlay.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 200, timeUnit = TimeUnit.MILLISECONDS)
+@Measurement(iterations = 10, time = 200, timeUnit = TimeUnit.MILLISECONDS)
+@Fork(value = 2, jvmArgsAppend = "-Djava.awt.headless=true")
+public class SimulationBench {
+
+    // Stepped 3 s in first, so most of the pile rests and some of it still moves.
+    // SEQUENTIAL and PARALLEL compute the same state, so only the time differs.
+    @State(Scope.Thread)
+    public static class Pit {
+        @Param({ "1000", "10000", "100000" })
+        int balls;
+        @Param({ "SEQUENTIAL", "PARALLEL" })
+        String mode;
+        LongSupplier op;
+
+        @Setup
+        public void setup() {
+            op = Targets.load().ballPitStep(balls, mode);
+        }
+    }
+
+    // Fully asleep, with a few balls kicked up: the cost should follow those, not the pit's size
+    @State(Scope.Thread)
+    public static class SettledPit {
+        @Param({ "10000", "100000" })
+        int balls;
+        LongSupplier op;
+
+        @Setup
+        public void setup() {
+            op = Targets.load().settledPitStep(balls);
+        }
+    }
+
+    // Every finger of every typist is updated, whether its row is on screen or not
+    @State(Scope.Thread)
+    public static class Crowd {
+        @Param({ "384", "10000" })
+        int typists;
+        LongSupplier op;
+
+        @Setup
+        public void setup() {
+            op = Targets.load().crowdStep(typists);
+        }
+    }
+
+    // Kept topped up: what dies in a step is emitted again
+    @State(Scope.Thread)
+    public static class Particles {
+        @Param({ "100000" })
+        int particles;
+        LongSupplier op;
+
+        @Setup
+        public void setup() {
+            op = Targets.load().particleStep(particles);
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Overlay {
+        @Param({ "100000" })
+        int particles;
+        @Param({ "600" })
+        int size;
+        LongSupplier op;
+
+        @Setup
+        public void setup() {
+            op = Targets.load().particleOverlay(particles, size);
+        }
+    }
+
+    @Benchmark
+    public void ballPitStep(Pit s, Blackhole bh) {
+        bh.consume(s.op.getAsLong());
+    }
+
+    @Benchmark
+    public void settledPitStep(SettledPit s, Blackhole bh) {
+        bh.consume(s.op.getAsLong());
+    }
+
+    @Benchmark
+    public void crowdStep(Crowd s, Blackhole bh) {
+        bh.consume(s.op.getAsLong());
+    }
+
+    @Benchmark
+    public void particleStep(Particles s, Blackhole bh) {
+        bh.consume(s.op.getAsLong());
+    }
+
+    @Benchmark
+    public void particleOverlay(Overlay s, Blackhole bh) {
+        bh.consume(s.op.getAsLong());
+    }
+}
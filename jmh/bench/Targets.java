@@ -0,0 +1,64 @@
+package bench;
+
+import java.util.function.LongSupplier;
+
+/**
+ * Fixtures for the benchmarks: each call builds one operation to time, with
+ * everything it needs set up, and returns it. The operation returns something
+ * derived from its work, which the benchmark hands to a Blackhole.
+ *
+ * The scene classes live in the default package, which a named package cannot
+ * refer to, and JMH only accepts benchmarks in a named package. So this is
+ * implemented by BenchTargets, in the default package next to the scenes, and
+ * load() finds it by name.
+ */
+public interface Targets {
+
+    LongSupplier bresenhamLine(int dx, int dy);
+
+    LongSupplier bresenhamLinePlot3x3(int dx, int dy);
+
+    LongSupplier midpointCircle(int radius);
+
+    LongSupplier fillMidpointCircle(int radius);
+
+    LongSupplier midpointEllipse(int a, int b);
+
+    /** Flood fill of the inside of a closed midpoint circle, reset before every fill. */
+    LongSupplier floodFill(int radius);
+
+    LongSupplier cubicBerzierCurve(int samples);
+
+    LongSupplier drawCubicBezier(int steps);
+
+    LongSupplier roundRectPolygon(int segPerQuarter);
+
+    LongSupplier fillCapsulePoly(int seg);
+
+    /** One 1/60 s step of a pit of `balls` balls, stepped 3 s in first so most of it rests. */
+    LongSupplier ballPitStep(int balls, String mode);
+
+    /** The same pit once all of it sleeps, with 5 balls kicked up every 10 steps. */
+    LongSupplier settledPitStep(int balls);
+
+    LongSupplier crowdStep(int typists);
+
+    /** `particles` live particles stepped 1/60 s and topped up again. */
+    LongSupplier particleStep(int particles);
+
+    LongSupplier particleOverlay(int particles, int size);
+
+    /** Full paint of a scene into a frame-sized offscreen image, at atSec into it. */
+    LongSupplier paint(String scene, double atSec);
+
+    /** KomodoDrawing's retained-image rebuild with the given raster backend. */
+    LongSupplier komodoRender(String raster);
+
+    static Targets load() {
+        try {
+            return (Targets) Class.forName("BenchTargets").getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("BenchTargets is not on the class path", e);
+        }
+    }
+}
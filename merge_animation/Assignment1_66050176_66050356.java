@@ -35,9 +35,9 @@ import javax.swing.JComponent;
 
 public class Assignment1_66050176_66050356 {
 
-    // === Scene durations (milliseconds) ===
-    private static final int DUR_FPS_MS = 10000; // 10 s
-    private static final int DUR_BALL_MS = 6000; // 6 s
+    // === Scene durations (milliseconds), also read by the offline TimelineRenderer ===
+    public static final int DUR_FPS_MS = 10000; // 10 s
+    public static final int DUR_BALL_MS = 6000; // 6 s
     // Last scene (Komodo) runs indefinitely, no timer
 
     // === Scene card names ===